@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark for the application built by build_app_linux.sh: time to the first frame
+# (splash screen) and to the sign-in screen, with and without the class-data sharing archive.
+#
+# The first run of each variant is reported as cold; it is truly cold only when the page cache
+# can be dropped, which needs root. The others are reported as warm, by their median.
+#
+# Usage: ./benchmark_startup.sh [runs per variant, default 5]
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PROJECT_NAME=${PROJECT_NAME:-Skynet}
+APP_DIR=target/linux-app
+JAVA="$APP_DIR/runtime/bin/java"
+JAR="$APP_DIR/lib/$PROJECT_NAME.jar"
+ARCHIVE="$APP_DIR/lib/$PROJECT_NAME.jsa"
+
+if [ ! -x "$JAVA" ] || [ ! -f "$ARCHIVE" ]; then
+  echo "$APP_DIR is incomplete, run build_app_linux.sh first" >&2
+  exit 1
+fi
+
+with_display() {
+  if [ -z "${DISPLAY:-}" ] && command -v xvfb-run > /dev/null; then
+    xvfb-run -a "$@"
+  else
+    "$@"
+  fi
+}
+
+drop_caches() {
+  if [ "$(id -u)" = 0 ]; then
+    sync
+    echo 3 > /proc/sys/vm/drop_caches
+  fi
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { if (NR == 0) print "-"; else print values[int((NR + 1) / 2)] }'
+}
+
+BENCH_HOME=$(mktemp -d)
+trap 'rm -rf "$BENCH_HOME"' EXIT
+
+# prints "<first frame ms> <sign-in ms>" for one run
+run_once() {
+  local output
+  output=$(with_display "$JAVA" "$@" -Duser.home="$BENCH_HOME" -Dskynet.exitAfterStartup=true -jar "$JAR" 2>&1)
+  echo "$(echo "$output" | sed -n 's/.*\[Startup\] first frame \([0-9]*\) ms.*/\1/p') $(echo "$output" | sed -n 's/.*\[Startup\] sign-in shown \([0-9]*\) ms.*/\1/p')"
+}
+
+# the database is copied to the benchmark home on the first launch; keep that out of the figures
+run_once -Xshare:auto > /dev/null
+
+printf "%-18s %12s %12s %14s %14s\n" "" "cold frame" "warm frame" "cold sign-in" "warm sign-in"
+for variant in "without archive" "with archive"; do
+  if [ "$variant" = "with archive" ]; then
+    options=(-XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto)
+  else
+    options=(-Xshare:auto)
+  fi
+
+  drop_caches
+  read -r cold_frame cold_signin <<< "$(run_once "${options[@]}")"
+  frames=()
+  signins=()
+  for ((i = 1; i < RUNS; i++)); do
+    read -r frame signin <<< "$(run_once "${options[@]}")"
+    frames+=("$frame")
+    signins+=("$signin")
+  done
+
+  printf "%-18s %10s ms %10s ms %12s ms %12s ms\n" "$variant" "$cold_frame" \
+    "$(printf "%s\n" "${frames[@]}" | median)" "$cold_signin" "$(printf "%s\n" "${signins[@]}" | median)"
+done
@@ -0,0 +1,207 @@
+package benchmarks;
+
+import data.DataSource;
+import models.Flight;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The database every benchmark runs against: a copy of the bundled database whose airports,
+ * airlines, accounts, flights and reservations are replaced by generated ones, sized by
+ * {@link #flights} and {@link #occupancy} (both can be set from the JMH command line, e.g.
+ * {@code -p flights=50000}).
+ * <p>
+ * Databases are generated once per size, with a fixed seed, under {@code target/benchmark-data}
+ * (or the directory in {@code skynet.benchmark.dir}) and reused by later runs; delete the directory
+ * to generate them again. Flights are spread over the year following the generation day, so a
+ * database more than a few months old has few flights left for the searches from now.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int AIRLINES = 20;
+    private static final int AIRPORTS_PER_COUNTRY = 4;
+
+    @Param({"1000", "10000"})
+    public int flights;
+
+    @Param({"0.3"})
+    public double occupancy;
+
+    int airports;
+    int accounts;
+    int countries;
+
+    @Setup(Level.Trial)
+    public void open() {
+        airports = Math.max(20, flights / 50);
+        accounts = Math.max(100, flights / 10);
+        countries = Math.max(1, airports / AIRPORTS_PER_COUNTRY);
+
+        Path directory = Path.of(System.getProperty("skynet.benchmark.dir", "target/benchmark-data"),
+                "flights-" + flights + "-occupancy-" + occupancy);
+        Path file = directory.resolve("applicationDataBase.db");
+        boolean exists = Files.exists(file);
+        // read by DataSource when it is first used, which must not have happened yet in this JVM
+        System.setProperty("skynet.db", file.toAbsolutePath().toString());
+        if (exists) {
+            DataSource.getConnection();
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // copies the bundled database and applies the migrations, so the schema is the application's
+            generate(DataSource.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            throw new IllegalStateException("Could not generate " + file, e);
+        }
+        System.out.println("Generated " + file + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    static String country(int index) {
+        return "Country " + index;
+    }
+
+    String countryOf(int airport) {
+        return country((airport - 1) / AIRPORTS_PER_COUNTRY % countries);
+    }
+
+    static String city(int airport) {
+        // two airports per city, as with the large cities of the bundled data
+        return "City " + ((airport - 1) / 2);
+    }
+
+    private void generate(Connection conn) throws SQLException {
+        Random random = new Random(42);
+        conn.setAutoCommit(false);
+        try (Statement statement = conn.createStatement()) {
+            for (String table : new String[]{"reservations", "favorites", "creditCards", "flights", "accounts", "passengers", "airports", "airlines"}) {
+                statement.execute("DELETE FROM " + table + ";");
+            }
+            statement.execute("DELETE FROM sqlite_sequence WHERE name <> 'seats';");
+
+            try (PreparedStatement query = conn.prepareStatement("INSERT INTO airlines (id, name, IATA) VALUES (?,?,?);")) {
+                for (int id = 1; id <= AIRLINES; id++) {
+                    query.setInt(1, id);
+                    query.setString(2, "Airline " + id);
+                    query.setString(3, code(id, 2));
+                    query.addBatch();
+                }
+                query.executeBatch();
+            }
+
+            try (PreparedStatement query = conn.prepareStatement("INSERT INTO airports (id, name, city, country, IATA, ICAO) VALUES (?,?,?,?,?,?);")) {
+                for (int id = 1; id <= airports; id++) {
+                    query.setInt(1, id);
+                    query.setString(2, "Airport " + id);
+                    query.setString(3, city(id));
+                    query.setString(4, countryOf(id));
+                    query.setString(5, code(id, 3));
+                    query.setString(6, code(id, 4));
+                    query.addBatch();
+                }
+                query.executeBatch();
+            }
+
+            try (PreparedStatement query = conn.prepareStatement("INSERT INTO accounts (id, username, password, emailAddress) VALUES (?,?,?,?);")) {
+                for (int id = 1; id <= accounts; id++) {
+                    query.setInt(1, id);
+                    query.setString(2, "user" + id);
+                    query.setString(3, "password");
+                    query.setString(4, "user" + id + "@example.com");
+                    query.addBatch();
+                }
+                query.executeBatch();
+            }
+
+            LocalDateTime firstDeparture = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            try (PreparedStatement query = conn.prepareStatement("INSERT INTO flights (id, dep_datetime, arr_datetime, first_price, business_price, economy_price, luggage_price, weight_price, id_airline, dep_airport, arr_airport, dep_epoch, arr_epoch) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?);")) {
+                for (int id = 1; id <= flights; id++) {
+                    int depAirport = 1 + random.nextInt(airports);
+                    int arrAirport = 1 + (depAirport + random.nextInt(airports - 1)) % airports;
+                    LocalDateTime departure = firstDeparture.plusMinutes(5L * random.nextInt(365 * 24 * 12));
+                    LocalDateTime arrival = departure.plusMinutes(45 + 5L * random.nextInt(150));
+                    double economy = 50 + random.nextInt(900);
+                    query.setInt(1, id);
+                    query.setString(2, departure.format(DATETIME_FORMATTER));
+                    query.setString(3, arrival.format(DATETIME_FORMATTER));
+                    query.setDouble(4, economy * 4);
+                    query.setDouble(5, economy * 2);
+                    query.setDouble(6, economy);
+                    query.setDouble(7, 30);
+                    query.setDouble(8, 5);
+                    query.setInt(9, 1 + random.nextInt(AIRLINES));
+                    query.setInt(10, depAirport);
+                    query.setInt(11, arrAirport);
+                    query.setLong(12, Flight.toEpochMinute(departure));
+                    query.setLong(13, Flight.toEpochMinute(arrival));
+                    query.addBatch();
+                }
+                query.executeBatch();
+            }
+
+            // the seat map is the bundled one
+            List<Integer> seatIds = new ArrayList<>();
+            try (ResultSet res = statement.executeQuery("SELECT id FROM seats ORDER BY id;")) {
+                while (res.next()) {
+                    seatIds.add(res.getInt("id"));
+                }
+            }
+            insertReservations(conn, random, seatIds.stream().mapToInt(Integer::intValue).toArray());
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void insertReservations(Connection conn, Random random, int[] seatIds) throws SQLException {
+        int perFlight = (int) Math.round(seatIds.length * occupancy);
+        try (PreparedStatement query = conn.prepareStatement("INSERT INTO reservations (id_flight, id_account, id_seat, nbr_luggages, weight) VALUES (?,?,?,?,?);")) {
+            for (int flight = 1; flight <= flights; flight++) {
+                // a partial shuffle picks the reserved seats without repeats
+                int[] shuffled = seatIds.clone();
+                for (int i = 0; i < perFlight; i++) {
+                    int j = i + random.nextInt(shuffled.length - i);
+                    int seat = shuffled[j];
+                    shuffled[j] = shuffled[i];
+                    shuffled[i] = seat;
+
+                    query.setInt(1, flight);
+                    query.setInt(2, 1 + random.nextInt(accounts));
+                    query.setInt(3, seat);
+                    query.setInt(4, random.nextInt(3));
+                    query.setDouble(5, random.nextInt(30));
+                    query.addBatch();
+                }
+                query.executeBatch();
+            }
+        }
+    }
+
+    private static String code(int id, int length) {
+        char[] code = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            code[i] = (char) ('A' + id % 26);
+            id /= 26;
+        }
+        return new String(code);
+    }
+}
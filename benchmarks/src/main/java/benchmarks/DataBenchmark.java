@@ -0,0 +1,158 @@
+package benchmarks;
+
+import data.*;
+import models.Flight;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The data paths that do not create JavaFX nodes: reading the timetable, the seat map of a flight,
+ * the cities of a country and searching flights.
+ * <p>
+ * Each benchmark method runs in its own JVM, so the static caches of the data package (airports,
+ * flight columns) are only warm where the benchmark warms them in its setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataBenchmark {
+    private int[] flightIds;
+    private String[] countries;
+    // walks through the flights and countries, so one hot row is not measured over and over
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        flightIds = new int[Math.min(database.flights, 1000)];
+        for (int i = 0; i < flightIds.length; i++) {
+            flightIds[i] = 1 + (int) ((long) i * database.flights / flightIds.length);
+        }
+        countries = new String[database.countries];
+        for (int i = 0; i < countries.length; i++) {
+            countries[i] = BenchmarkDatabase.country(i);
+        }
+    }
+
+    private int nextFlight() {
+        next = (next + 1) % flightIds.length;
+        return flightIds[next];
+    }
+
+    private String nextCountry() {
+        next = (next + 1) % countries.length;
+        return countries[next];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Flight> flightDaoReadAll() {
+        return FlightDao.getInstance().readAll();
+    }
+
+    /**
+     * What the seat map and the booking server read to show a flight: the reserved and held seats,
+     * joined to every seat row.
+     */
+    @Benchmark
+    public void seatMapOccupancy(Blackhole blackhole) {
+        Flight flight = new Flight();
+        flight.setId(nextFlight());
+        HashMap<Integer, Integer> occupied = new ReservationDao().readOccupiedSeats(flight);
+        Set<Integer> held = SeatHoldManager.getInstance().readHeldSeats(flight.getId(), 0);
+        for (SeatDao.SeatRow row : new SeatDao().readRows()) {
+            blackhole.consume(occupied.containsKey(row.getId()) || held.contains(row.getId()));
+        }
+    }
+
+    /**
+     * Cities of a country read from SQLite, as before the airports are cached.
+     */
+    @Benchmark
+    public List<String> cityListFromDatabase() {
+        return AirportDao.getCityList(nextCountry());
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmAirports {
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDatabase database) {
+            // fills the airport cache, which getCityList(country) then answers from
+            new AirportDao().readAll();
+        }
+    }
+
+    @Benchmark
+    public List<String> cityListFromCache(WarmAirports airports) {
+        return AirportDao.getCityList(nextCountry());
+    }
+
+    @State(Scope.Benchmark)
+    public static class Search {
+        HashMap<Integer, Integer> availability;
+        Set<Integer> depAirports;
+        Set<Integer> arrAirports;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDatabase database) {
+            availability = new SeatInventoryDao().readAvailability(null);
+            depAirports = AirportDao.getAirportIds(BenchmarkDatabase.country(0), null);
+            arrAirports = AirportDao.getAirportIds(BenchmarkDatabase.country(database.countries - 1), null);
+            FlightColumns.getInstance();
+        }
+    }
+
+    /**
+     * Flights from a country with two seats left, over the whole timetable and with the
+     * availability already read: measures the column scan and the availability predicate.
+     */
+    @Benchmark
+    public int[] searchPredicate(Search search) {
+        long from = Flight.toEpochMinute(LocalDateTime.now());
+        return FlightColumns.getInstance().search(search.depAirports, null, from, Flight.NO_DATETIME,
+                flight -> search.availability.getOrDefault(flight, 0) >= 2, FlightColumns.Order.DEPARTURE_ASCENDING);
+    }
+
+    /**
+     * The same between two countries, where most rows are rejected on their airports.
+     */
+    @Benchmark
+    public int[] searchPredicateRoute(Search search) {
+        long from = Flight.toEpochMinute(LocalDateTime.now());
+        return FlightColumns.getInstance().search(search.depAirports, search.arrAirports, from, Flight.NO_DATETIME,
+                flight -> search.availability.getOrDefault(flight, 0) >= 2, FlightColumns.Order.DEPARTURE_ASCENDING);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SearchIndex {
+        FlightSearchIndex index;
+        String[] queries;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDatabase database) {
+            index = new FlightSearchIndex(FlightDao.getInstance().readAll());
+            queries = new String[database.airports];
+            for (int airport = 1; airport <= database.airports; airport++) {
+                queries[airport - 1] = database.countryOf(airport) + " " + BenchmarkDatabase.city(airport);
+            }
+        }
+    }
+
+    /**
+     * The dashboard's free-text filter with a country and city: each word is resolved to airports,
+     * then to their flights, and the sets are intersected.
+     */
+    @Benchmark
+    public Set<Integer> searchIndexQuery(SearchIndex searchIndex) {
+        next = (next + 1) % searchIndex.queries.length;
+        return searchIndex.index.search(searchIndex.queries[next], () -> false);
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import data.ReservationDao;
+import data.SeatDao;
+import javafx.application.Platform;
+import models.Account;
+import models.Flight;
+import models.Reservation;
+import models.Seat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading reservations, which builds a {@link Seat} for each of them. Seats are JavaFX controls,
+ * so the toolkit is started first: these benchmarks need a display, or {@code xvfb-run} on a
+ * headless machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationBenchmark {
+    private int flights;
+    private int accounts;
+    private List<Seat> seats;
+    // walks through the accounts, flights and seats, so one hot row is not measured over and over
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // already started
+        }
+        flights = database.flights;
+        accounts = database.accounts;
+        seats = new SeatDao().readAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Platform.exit();
+    }
+
+    /**
+     * An account's reservations, as the account page and {@link Account#getReservation} read them.
+     */
+    @Benchmark
+    public List<Reservation> reservationsOfAccount() {
+        Account account = new Account();
+        account.setId(1 + next++ % accounts);
+        return new ReservationDao().read(account);
+    }
+
+    /**
+     * Whether a seat of a flight is taken, as {@link Seat#isReserved} asks it; most seats are free.
+     */
+    @Benchmark
+    public Reservation reservationOfSeat() {
+        Flight flight = new Flight();
+        flight.setId(1 + next % flights);
+        Seat seat = seats.get(next++ % seats.size());
+        return new ReservationDao().read(flight, seat);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import data.SeatHoldManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seat holds taken and released by many checkouts at once. Holds live in memory, so no database
+ * is needed; the score is operations per second over all threads.
+ * <p>
+ * {@link #holdAndRelease} spreads the threads over a whole day of flights, as real checkouts are;
+ * {@link #holdAndReleaseContended} has them all fight over the seats of one flight, where most
+ * holds fail and the retry loop is exercised.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class SeatHoldBenchmark {
+    private static final int FLIGHTS = 500;
+    private static final int SEATS = 120;
+    private static final int CONTENDED_SEATS = 6;
+
+    @State(Scope.Thread)
+    public static class Checkout {
+        private static final AtomicInteger accounts = new AtomicInteger();
+
+        final int account = accounts.incrementAndGet();
+        final SplittableRandom random = new SplittableRandom(account);
+        final SeatHoldManager holds = SeatHoldManager.getInstance();
+    }
+
+    @Benchmark
+    public boolean holdAndRelease(Checkout checkout) {
+        int flight = 1 + checkout.random.nextInt(FLIGHTS);
+        int seat = 1 + checkout.random.nextInt(SEATS);
+        boolean isHeld = checkout.holds.hold(flight, seat, checkout.account);
+        if (isHeld) {
+            checkout.holds.release(flight, seat, checkout.account);
+        }
+        return isHeld;
+    }
+
+    @Benchmark
+    public boolean holdAndReleaseContended(Checkout checkout) {
+        int seat = 1 + checkout.random.nextInt(CONTENDED_SEATS);
+        boolean isHeld = checkout.holds.hold(1, seat, checkout.account);
+        if (isHeld) {
+            checkout.holds.release(1, seat, checkout.account);
+        }
+        return isHeld;
+    }
+
+    /**
+     * The check the seat map and the booking server make for every seat they show.
+     */
+    @Benchmark
+    public boolean isHeldByOther(Checkout checkout) {
+        return checkout.holds.isHeldByOther(1 + checkout.random.nextInt(FLIGHTS), 1 + checkout.random.nextInt(SEATS), checkout.account);
+    }
+}
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+#
+# Builds target/linux-app, a self-contained Linux application:
+#   runtime/         JDK trimmed with jlink to the modules the application uses
+#   lib/Skynet.jar   the shaded application jar
+#   lib/Skynet.jsa   class-data sharing archive recorded from a scripted sign-in and search
+#   bin/skynet       launcher using both
+#
+# Run by the build-linux Maven profile at install; run benchmark_startup.sh afterwards to compare
+# startup with and without the archive.
+
+set -euo pipefail
+
+PROJECT_NAME=${PROJECT_NAME:-Skynet}
+MAIN_JAR=$PROJECT_NAME.jar
+APP_DIR=target/linux-app
+JAVA_HOME=${JAVA_HOME:-$(dirname "$(dirname "$(readlink -f "$(command -v java)")")")}
+
+# JDK modules used by the application and its dependencies; JavaFX itself is in the jar.
+MODULES=${SKYNET_MODULES:-java.base,java.desktop,java.logging,java.management,java.naming,java.net.http,java.scripting,java.sql,java.xml,jdk.crypto.ec,jdk.httpserver,jdk.unsupported}
+
+if [ ! -f "target/$MAIN_JAR" ]; then
+  echo "target/$MAIN_JAR not found, run mvn package first" >&2
+  exit 1
+fi
+
+# Runs a graphical command, on a virtual display when there is no real one.
+with_display() {
+  if [ -z "${DISPLAY:-}" ] && command -v xvfb-run > /dev/null; then
+    xvfb-run -a "$@"
+  else
+    "$@"
+  fi
+}
+
+rm -rf "$APP_DIR"
+mkdir -p "$APP_DIR/lib" "$APP_DIR/bin"
+cp "target/$MAIN_JAR" "$APP_DIR/lib/"
+
+echo "Linking runtime with $MODULES"
+"$JAVA_HOME/bin/jlink" \
+  --add-modules "$MODULES" \
+  --strip-debug \
+  --no-header-files \
+  --no-man-pages \
+  --compress=2 \
+  --output "$APP_DIR/runtime"
+
+# A dynamic archive is layered on the runtime's base archive, which jlink does not create.
+"$APP_DIR/runtime/bin/java" -Xshare:dump > /dev/null
+
+echo "Recording class-data sharing archive"
+TRAINING_HOME=$(mktemp -d)
+trap 'rm -rf "$TRAINING_HOME"' EXIT
+with_display "$APP_DIR/runtime/bin/java" \
+  -XX:ArchiveClassesAtExit="$APP_DIR/lib/$PROJECT_NAME.jsa" \
+  -Duser.home="$TRAINING_HOME" \
+  -Dskynet.training=true \
+  -jar "$APP_DIR/lib/$MAIN_JAR"
+
+cat > "$APP_DIR/bin/skynet" <<LAUNCHER
+#!/bin/sh
+DIR=\$(cd "\$(dirname "\$0")/.." && pwd)
+exec "\$DIR/runtime/bin/java" -XX:SharedArchiveFile="\$DIR/lib/$PROJECT_NAME.jsa" -Xshare:auto -Xmx2048m -jar "\$DIR/lib/$MAIN_JAR" "\$@"
+LAUNCHER
+chmod +x "$APP_DIR/bin/skynet"
+
+echo "Built $APP_DIR"
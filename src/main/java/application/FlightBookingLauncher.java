@@ -1,7 +1,16 @@
 package application;
 
+import server.BookingServer;
+
+import java.util.Arrays;
+
 public class FlightBookingLauncher {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // --server [port]: the HTTP booking server alone, without any window
+        if (args.length > 0 && args[0].equals("--server")) {
+            BookingServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Main.main(args);
     }
 }
@@ -1,14 +1,20 @@
 package application;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import view.Palette;
 
+import java.time.Duration;
+import java.time.Instant;
+
 public class Main extends Application {
 	
 	public static void main(String[] args) {
@@ -16,12 +22,39 @@ public class Main extends Application {
 	}
 	@Override
 	public void start(Stage primaryStage) {
+		Palette.setDefaultPalette(Palette.LightPalette);
+		SplashScreen splash = new SplashScreen();
+		splash.setOnShown(() -> System.out.println("[Startup] first frame " + millisSinceLaunch() + " ms after launch"));
+		splash.show();
+
+		new StartupPipeline()
+				.start((stage, done, total) -> Platform.runLater(() -> splash.setProgress(stage, done, total)))
+				.whenComplete((result, e) -> Platform.runLater(() -> {
+					if (e != null) {
+						splash.close();
+						showStartupError(e.getCause() != null ? e.getCause() : e);
+						return;
+					}
+					showSignin(primaryStage);
+					splash.close();
+				}));
+	}
+
+	private void showStartupError(Throwable e) {
+		e.printStackTrace();
+		Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage(), ButtonType.CLOSE);
+		alert.setTitle("Skynet");
+		alert.setHeaderText("Skynet could not start");
+		alert.showAndWait();
+		Platform.exit();
+	}
+
+	private void showSignin(Stage primaryStage) {
 		try {
           	Parent root = FXMLLoader.load(getClass().getResource("/view/Signin.fxml"));
 
 			Scene scene = new Scene(root);
 
-			Palette.setDefaultPalette(Palette.LightPalette);
 			Palette.getDefaultPalette().usePalette(scene);
 
 			primaryStage.initStyle(StageStyle.UNIFIED);
@@ -30,9 +63,27 @@ public class Main extends Application {
 			primaryStage.setTitle("Skynet");
 			primaryStage.getIcons().add(new Image(getClass().getResource("/images/SkynetLogo.png").toExternalForm()));
 			primaryStage.show();
+			System.out.println("[Startup] sign-in shown " + millisSinceLaunch() + " ms after launch");
+
+			if (TrainingRun.isEnabled()) {
+				TrainingRun.start(primaryStage);
+			}
+			else if (Boolean.getBoolean("skynet.exitAfterStartup")) {
+				// startup benchmark: the timings above are all that is wanted
+				Platform.exit();
+			}
 		}
 		catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Time since the process started, JVM startup included.
+	 */
+	static long millisSinceLaunch() {
+		return ProcessHandle.current().info().startInstant()
+				.map(start -> Duration.between(start, Instant.now()).toMillis())
+				.orElse(-1L);
+	}
 }
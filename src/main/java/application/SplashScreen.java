@@ -0,0 +1,61 @@
+package application;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import view.Palette;
+
+/**
+ * Small undecorated window shown while the {@link StartupPipeline} runs, with the stage last
+ * finished and the overall progress.
+ */
+public class SplashScreen {
+    private final Stage stage = new Stage(StageStyle.UNDECORATED);
+    private final Label lblStage = new Label("Starting…");
+    private final ProgressBar progressBar = new ProgressBar(0);
+
+    public SplashScreen() {
+        ImageView logo = new ImageView(new Image(getClass().getResource("/images/SkynetLogo.png").toExternalForm()));
+        logo.setFitHeight(96);
+        logo.setPreserveRatio(true);
+        progressBar.setPrefWidth(260);
+
+        VBox root = new VBox(16, logo, progressBar, lblStage);
+        root.setAlignment(Pos.CENTER);
+        root.setPadding(new Insets(32));
+
+        Scene scene = new Scene(root, 380, 260);
+        Palette.getDefaultPalette().usePalette(scene);
+        root.setStyle(root.getStyle() + "-fx-background-color: SecondaryColor;");
+        stage.setScene(scene);
+        stage.setTitle("Skynet");
+        stage.getIcons().add(new Image(getClass().getResource("/images/SkynetLogo.png").toExternalForm()));
+    }
+
+    public void setOnShown(Runnable action) {
+        stage.setOnShown(event -> action.run());
+    }
+
+    public void show() {
+        stage.show();
+    }
+
+    /**
+     * Must be called on the FX thread.
+     */
+    public void setProgress(String stageName, int done, int total) {
+        lblStage.setText("Loaded " + stageName);
+        progressBar.setProgress((double) done / total);
+    }
+
+    public void close() {
+        stage.close();
+    }
+}
@@ -0,0 +1,89 @@
+package application;
+
+import data.DataSource;
+import data.ReferenceSnapshot;
+import util.FxmlPreloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Everything that has to happen before the sign-in screen is usable, run in parallel where the
+ * stages do not depend on each other: the database is opened and migrated, then the reference
+ * caches are warmed from it, while the classes of the main views are preloaded.
+ * <p>
+ * Each stage is timed, and the timings are printed once the pipeline is done so a change to
+ * startup can be measured.
+ */
+public class StartupPipeline {
+    public interface Listener {
+        /**
+         * Called from a background thread each time a stage finishes.
+         */
+        void stageDone(String stage, int done, int total);
+    }
+
+    private static final String[] VIEWS = {
+            "/view/Signin.fxml", "/view/Application.fxml", "/view/NavigationBar.fxml", "/view/HomePage.fxml",
+            "/view/FlightCard_Small.fxml", "/view/SearchPage/SearchPage.fxml", "/view/SearchPage/FlightCard.fxml",
+            "/view/Dashboard_Airline.fxml"
+    };
+    private static final int STAGES = 3;
+
+    private final List<String> timings = new ArrayList<>();
+    private final long startedAt = System.nanoTime();
+    private int done = 0;
+    private Listener listener;
+
+    /**
+     * Runs every stage; the returned future completes once all of them have. It completes
+     * exceptionally when the database could not be opened, in which case the application cannot
+     * start; the other stages only speed up what follows, and their failures are just printed.
+     */
+    public CompletableFuture<Void> start(Listener listener) {
+        this.listener = listener;
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the reference caches are read from the database, so they wait for it
+        CompletableFuture<Void> data = CompletableFuture
+                .runAsync(() -> stage("database and migrations", true, DataSource::getConnection), executor)
+                .thenRunAsync(() -> stage("reference caches", false, ReferenceSnapshot::warm), executor);
+        CompletableFuture<Void> views = CompletableFuture
+                .runAsync(() -> stage("views", false, () -> FxmlPreloader.preload(VIEWS)), executor);
+
+        return CompletableFuture.allOf(data, views).whenComplete((result, e) -> {
+            executor.shutdown();
+            System.out.println("[Startup] " + String.join(", ", timings) + "; ready in " + millisSince(startedAt) + " ms");
+        });
+    }
+
+    private void stage(String name, boolean isRequired, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            if (isRequired) {
+                throw e;
+            }
+            e.printStackTrace();
+        } finally {
+            int stageNumber;
+            synchronized (this) {
+                timings.add(name + " " + millisSince(start) + " ms");
+                stageNumber = ++done;
+            }
+            listener.stageDone(name, stageNumber, STAGES);
+        }
+    }
+
+    public static long millisSince(long nanoTime) {
+        return (System.nanoTime() - nanoTime) / 1_000_000;
+    }
+}
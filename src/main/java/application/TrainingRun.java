@@ -0,0 +1,51 @@
+package application;
+
+import controller.ApplicationController;
+import data.AccountDao;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import models.Account;
+
+/**
+ * Scripted sign-in and search, run instead of waiting for a user when {@code skynet.training} is
+ * set. The Linux build runs it once with {@code -XX:ArchiveClassesAtExit} so the class-data
+ * sharing archive holds the classes a real session loads up to its first search.
+ */
+class TrainingRun {
+    // time left to the background search before the application quits
+    private static final Duration SEARCH_TIME = Duration.seconds(3);
+
+    private TrainingRun() {
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean("skynet.training");
+    }
+
+    static void start(Stage signinStage) {
+        Account passenger = new AccountDao().readAll().stream()
+                .filter(account -> account.getPassenger() != null)
+                .findFirst()
+                .orElse(null);
+        if (passenger == null) {
+            System.err.println("[Training] No passenger account to sign in with");
+            Platform.exit();
+            return;
+        }
+
+        Account.setCurrentUser(passenger);
+        signinStage.close();
+        ApplicationController.appLoad(new Stage());
+        ApplicationController.navBarController.openSearch(new ActionEvent());
+
+        PauseTransition searchTime = new PauseTransition(SEARCH_TIME);
+        searchTime.setOnFinished(event -> {
+            ApplicationController.clearAllCollections();
+            Platform.exit();
+        });
+        searchTime.play();
+    }
+}
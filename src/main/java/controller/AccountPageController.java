@@ -13,10 +13,11 @@ import javafx.scene.layout.VBox;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Objects;
 import java.util.ResourceBundle;
 
-public class AccountPageController implements Initializable {
+public class AccountPageController implements Initializable, PageLifecycle {
 
     @FXML
     private HBox parent;
@@ -36,14 +37,28 @@ public class AccountPageController implements Initializable {
     @FXML
     private ToggleButton togglePersonal;
 
+    private static final String PERSONAL_TAB = "/view/accountPage/PersonalInformation.fxml";
+    // tabs built so far, by FXML path; the controller is the tab's user data
+    private final HashMap<String, Parent> tabsByPath = new HashMap<>();
+    private Parent currentTab;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         parent.getStylesheets().add(getClass().getResource("/style/AccountPage.css").toExternalForm());
+        loadTab(PERSONAL_TAB);
+    }
+
+    @Override
+    public void onShow() {
+        if (currentTab != null && currentTab.getUserData() instanceof PageLifecycle tab) {
+            tab.onShow();
+        }
+    }
 
-        try {
-            tabContent.getChildren().add(FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/view/accountPage/PersonalInformation.fxml"))));
-        } catch (IOException e) {
-            e.printStackTrace();
+    @Override
+    public void onHide() {
+        if (currentTab != null && currentTab.getUserData() instanceof PageLifecycle tab) {
+            tab.onHide();
         }
     }
 
@@ -61,19 +76,39 @@ public class AccountPageController implements Initializable {
 
     @FXML
     void openPersonalTab(ActionEvent event) {
-        loadTab("/view/accountPage/PersonalInformation.fxml");
+        loadTab(PERSONAL_TAB);
         togglePersonal.setSelected(true);
     }
 
+    /**
+     * Shows a tab, building it the first time only; a tab shown again refreshes through
+     * {@link PageLifecycle#onShow()} instead.
+     */
     private void loadTab(String path) {
-        try {
-            Parent tab = FXMLLoader.load(getClass().getResource(path));
-            VBox.setVgrow(tab, Priority.ALWAYS);
-
-            tabContent.getChildren().clear();
-            tabContent.getChildren().add(tab);
-        } catch (IOException e) {
-            e.printStackTrace();
+        Parent tab = tabsByPath.get(path);
+        boolean isNew = tab == null;
+        if (isNew) {
+            try {
+                FXMLLoader tabLoader = new FXMLLoader(Objects.requireNonNull(getClass().getResource(path)));
+                tab = tabLoader.load();
+                VBox.setVgrow(tab, Priority.ALWAYS);
+                tab.setUserData(tabLoader.getController());
+                tabsByPath.put(path, tab);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+        if (tab == currentTab) {
+            return;
+        }
+
+        onHide();
+        currentTab = tab;
+        tabContent.getChildren().clear();
+        tabContent.getChildren().add(tab);
+        if (!isNew) {
+            onShow();
         }
     }
 }
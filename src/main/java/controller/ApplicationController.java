@@ -1,7 +1,11 @@
 package controller;
 
+import application.StartupPipeline;
 import data.CreditCardDao;
 import data.FavoriteDao;
+import data.FavoriteWatcher;
+import data.SeatHoldManager;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -13,10 +17,14 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import models.Account;
+import models.Flight;
+import org.controlsfx.control.Notifications;
 import view.Palette;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.Stack;
 
@@ -28,6 +36,8 @@ public class ApplicationController implements Initializable {
     public static Stack<Node> searchPageStack = new Stack<>();
     public static Stack<Node> homePageStack = new Stack<>();
     public static NavigationBarController navBarController;
+    private static FavoriteWatcher favoriteWatcher;
+    private static final DateTimeFormatter NOTIFICATION_DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE d MMM, HH:mm");
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -37,6 +47,7 @@ public class ApplicationController implements Initializable {
 
             navBarController = navBarLoader.getController();
             navBarController.openHome(new ActionEvent());
+            navBarController.preload(NavigationBarController.SEARCH_PAGE);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -44,6 +55,7 @@ public class ApplicationController implements Initializable {
     }
 
     public static void appLoad(Stage primaryStage){
+        long startedAt = System.nanoTime();
         try {
             Parent root;
             if (Account.getCurrentUser().getPassenger() != null) {
@@ -67,6 +79,12 @@ public class ApplicationController implements Initializable {
             primaryStage.setTitle("Skynet");
             primaryStage.getIcons().add(new Image(ApplicationController.class.getResource("/images/SkynetLogo.png").toExternalForm()));
             primaryStage.show();
+            System.out.println("[Startup] application shown " + StartupPipeline.millisSince(startedAt) + " ms after sign-in");
+
+            if (Account.getCurrentUser().getPassenger() != null) {
+                favoriteWatcher = new FavoriteWatcher(Account.getCurrentUser(), changes -> Platform.runLater(() -> notifyChanges(changes)));
+                favoriteWatcher.start();
+            }
 
         }
         catch (Exception e) {
@@ -74,7 +92,40 @@ public class ApplicationController implements Initializable {
         }
     }
 
+    private static void notifyChanges(List<FavoriteWatcher.Change> changes) {
+        for (FavoriteWatcher.Change change : changes) {
+            String route = change.getDepCity() + " → " + change.getArrCity();
+            String departure = Flight.fromEpochMinute(change.getNewDepEpochMinute()).format(NOTIFICATION_DATE_FORMATTER);
+            if (change.getKind() == FavoriteWatcher.Kind.PRICE_DROP) {
+                Notifications.create()
+                        .title("Price drop on " + route)
+                        .text(String.format("%s fare of your %s flight is now %.02f$ (was %.02f$).", change.getCabin(), departure, change.getNewPrice(), change.getOldPrice()))
+                        .showInformation();
+            }
+            else if (change.isDepartureChanged()) {
+                Notifications.create()
+                        .title("Schedule change on " + route)
+                        .text("Your favorite flight was " + Flight.fromEpochMinute(change.getOldDepEpochMinute()).format(NOTIFICATION_DATE_FORMATTER) + ", it now departs " + departure + ".")
+                        .showWarning();
+            }
+            else {
+                Notifications.create()
+                        .title("Schedule change on " + route)
+                        .text("Your " + departure + " favorite flight now arrives " + Flight.fromEpochMinute(change.getNewArrEpochMinute()).format(NOTIFICATION_DATE_FORMATTER)
+                                + " (was " + Flight.fromEpochMinute(change.getOldArrEpochMinute()).format(NOTIFICATION_DATE_FORMATTER) + ").")
+                        .showWarning();
+            }
+        }
+    }
+
     public static void clearAllCollections() {
+        if (favoriteWatcher != null) {
+            favoriteWatcher.stop();
+            favoriteWatcher = null;
+        }
+        if (Account.getCurrentUser() != null) {
+            SeatHoldManager.getInstance().releaseAll(Account.getCurrentUser().getId());
+        }
         searchPageStack.clear();
         homePageStack.clear();
         FavoriteDao.favoritesMap.clear();
@@ -1,12 +1,21 @@
 package controller;
 
+import data.AirlineAnalytics;
 import data.AirlineDao;
 import data.AirportDao;
+import data.DataEvent;
+import data.DataEventBus;
 import data.FlightDao;
+import data.FlightSearchIndex;
+import data.ManifestExporter;
 import data.ReservationDao;
+import data.ScheduleImporter;
+import data.SeatInventoryDao;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
@@ -15,6 +24,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.chart.AreaChart;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
@@ -26,20 +37,43 @@ import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
 import models.Account;
+import models.Airline;
 import models.Airport;
 import models.Flight;
+import models.Reservation;
+import models.SeatInventory;
+import org.controlsfx.control.Notifications;
 import org.controlsfx.control.SearchableComboBox;
+import util.TicketRenderer;
 import view.Palette;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class DashboardController implements Initializable {
 
@@ -54,6 +88,48 @@ public class DashboardController implements Initializable {
     @FXML
     private Button deleteButton;
 
+    @FXML
+    private Button boardingPassesButton;
+
+    @FXML
+    private Button manifestButton;
+
+    @FXML
+    private Button importButton;
+
+    @FXML
+    private Button shiftButton;
+
+    @FXML
+    private Label lblLoadFactor;
+
+    @FXML
+    private Label lblRevenue;
+
+    @FXML
+    private Label lblCabinRevenue;
+
+    @FXML
+    private TableView<AirlineAnalytics.Totals> routeTable;
+
+    @FXML
+    private TableColumn<AirlineAnalytics.Totals, String> colRoute;
+
+    @FXML
+    private TableColumn<AirlineAnalytics.Totals, String> colRouteFlights;
+
+    @FXML
+    private TableColumn<AirlineAnalytics.Totals, String> colRouteLoad;
+
+    @FXML
+    private TableColumn<AirlineAnalytics.Totals, String> colRouteRevenue;
+
+    @FXML
+    private AreaChart<String, Number> bookingsChart;
+
+    @FXML
+    private Button pricesButton;
+
     @FXML
     private StackPane actionPanel;
 
@@ -145,13 +221,41 @@ public class DashboardController implements Initializable {
     private ToggleButton themeButton;
 
     private final Alert alert = new Alert(Alert.AlertType.INFORMATION);
+    // flights inserted but not yet added to the table
+    private final List<Flight> pendingInserts = new ArrayList<>();
+    // flights deleted but still in the table
+    private final Set<Integer> pendingDeletes = new HashSet<>();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final AtomicBoolean analyticsPending = new AtomicBoolean();
+    // one refresh at a time, so figures are shown in the order they were read
+    private static final ExecutorService analyticsReader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "airline-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final DateTimeFormatter BOOKING_DAY_FORMATTER = DateTimeFormatter.ofPattern("d MMM");
     private FilteredList<Flight> results;
+    private FlightSearchIndex searchIndex;
+    // how long typing must pause before the table is filtered
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+    // bumped by every keystroke and search, so only the latest search is applied
+    private final AtomicInteger searchGeneration = new AtomicInteger();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         FlightDao flightDao = new FlightDao();
         results = new FilteredList<>(FXCollections.observableList(flightDao.read(Account.getCurrentUser().getAirline())), flight -> true);
+        searchIndex = new FlightSearchIndex(results.getSource());
+        // subscribed first, so its figures are current by the time this controller hears of a change
+        AirlineAnalytics.getInstance(Account.getCurrentUser().getAirline());
+        DataEventBus.getInstance().subscribe(this, Flight.class, DashboardController::onFlightChanged);
+        // bookings only change the capacity column and the analytics
+        DataEventBus.getInstance().subscribe(this, Reservation.class, (controller, event) -> {
+            Platform.runLater(controller.flightTable::refresh);
+            controller.refreshAnalytics();
+        });
         setData();
+        setUpAnalytics();
         findFlight();
 
         if (Palette.getDefaultPalette().equals(Palette.DarkPalette)) {
@@ -257,21 +361,33 @@ public class DashboardController implements Initializable {
             colArrAirport.setCellValueFactory(flight -> new SimpleStringProperty(flight.getValue().getArrAirport().getName()));
             colArrDateTime.setCellValueFactory(flight -> new SimpleStringProperty(flight.getValue().getArrDatetime().format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm"))));
             colCapacity.setCellValueFactory(flight -> {
-                ReservationDao reservationDao = new ReservationDao();
-                return new SimpleStringProperty(reservationDao.countReservations(flight.getValue()) + "/120");
+                SeatInventoryDao seatInventoryDao = new SeatInventoryDao();
+                int booked = 0;
+                int capacity = 0;
+                for (SeatInventory inventory : seatInventoryDao.read(flight.getValue())) {
+                    booked += inventory.getBooked();
+                    capacity += inventory.getCapacity();
+                }
+                return new SimpleStringProperty(booked + "/" + capacity);
             });
             flightTable.setItems(results);
 
-            flightTable.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
-                editButton.setDisable(newValue == null);
-                deleteButton.setDisable(newValue == null);
+            flightTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+            flightTable.getSelectionModel().getSelectedIndices().addListener((ListChangeListener<Integer>) change -> {
+                int selected = flightTable.getSelectionModel().getSelectedIndices().size();
+                // editing and boarding passes are per flight; shifting, repricing and deleting work on the whole selection
+                editButton.setDisable(selected != 1);
+                boardingPassesButton.setDisable(selected != 1);
+                deleteButton.setDisable(selected == 0);
+                shiftButton.setDisable(selected == 0);
+                pricesButton.setDisable(selected == 0);
             });
 
             flightTable.setRowFactory(tableView -> {
                 TableRow<Flight> row = new TableRow<>();
                 row.addEventFilter(MouseEvent.MOUSE_PRESSED, event -> {
                     int index = row.getIndex();
-                    if (tableView.getSelectionModel().isSelected(index)) {
+                    if (!event.isShortcutDown() && !event.isShiftDown() && tableView.getSelectionModel().isSelected(index)) {
                         tableView.getSelectionModel().clearSelection();
                         event.consume();
                     }
@@ -360,9 +476,6 @@ public class DashboardController implements Initializable {
         flight.setWeightPrice(Double.parseDouble(priceWeight.getText()));
 
         flightDao.create(flight);
-        @SuppressWarnings("unchecked")
-        ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
-        source.add(0, flight);
     }
 
     @FXML
@@ -481,13 +594,321 @@ public class DashboardController implements Initializable {
 
     @FXML
     void deleteFlight() {
-        FlightDao flightDao = new FlightDao();
+        List<Flight> selectedFlights = new ArrayList<>(flightTable.getSelectionModel().getSelectedItems());
+        if (selectedFlights.isEmpty()) {
+            return;
+        }
+        if (selectedFlights.size() > 1) {
+            Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION, "Cancel and delete the " + selectedFlights.size() + " selected flights?", ButtonType.YES, ButtonType.NO);
+            confirmation.initOwner(parent.getScene().getWindow());
+            confirmation.getDialogPane().getStylesheets().add(getClass().getResource("/style/Application.css").toExternalForm());
+            Palette.getDefaultPalette().usePalette(confirmation.getDialogPane().getScene());
+            if (confirmation.showAndWait().orElse(ButtonType.NO) != ButtonType.YES) {
+                return;
+            }
+        }
+
+        FlightDao.getInstance().deleteAll(selectedFlights.stream().map(Flight::getId).toList());
+    }
+
+    /**
+     * Moves every selected flight by the same number of minutes (negative to bring them forward).
+     */
+    @FXML
+    void shiftSchedule() {
+        List<Flight> selectedFlights = new ArrayList<>(flightTable.getSelectionModel().getSelectedItems());
+        Double minutes = askNumber("Shift schedule", "Minutes to move the " + selectedFlights.size() + " selected flight(s) by:");
+        if (minutes == null || minutes.longValue() == 0 || selectedFlights.isEmpty()) {
+            return;
+        }
+
+        long shift = minutes.longValue();
+        Set<Integer> moved = new HashSet<>(FlightDao.getInstance().shiftSchedule(selectedFlights.stream().map(Flight::getId).toList(), shift));
+        // a flight deleted meanwhile is not moved
+        selectedFlights.stream().filter(flight -> moved.contains(flight.getId())).forEach(FlightDao.shift(shift));
+        flightTable.refresh();
+    }
+
+    /**
+     * Raises or lowers the cabin fares of every selected flight by a percentage.
+     */
+    @FXML
+    void adjustPrices() {
+        List<Flight> selectedFlights = new ArrayList<>(flightTable.getSelectionModel().getSelectedItems());
+        Double percent = askNumber("Adjust prices", "Percentage to change the fares of the " + selectedFlights.size() + " selected flight(s) by (e.g. 10 or -15):");
+        if (percent == null || percent == 0 || percent <= -100 || selectedFlights.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> repriced = new HashSet<>(FlightDao.getInstance().adjustPrices(selectedFlights.stream().map(Flight::getId).toList(), percent));
+        selectedFlights.stream().filter(flight -> repriced.contains(flight.getId())).forEach(FlightDao.reprice(1 + percent / 100));
+        flightTable.refresh();
+    }
+
+    private Double askNumber(String title, String question) {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle(title);
+        dialog.setHeaderText(null);
+        dialog.setContentText(question);
+        dialog.initOwner(parent.getScene().getWindow());
+        dialog.getDialogPane().getStylesheets().add(getClass().getResource("/style/Application.css").toExternalForm());
+        Palette.getDefaultPalette().usePalette(dialog.getDialogPane().getScene());
+        allowSignedNumberOnly(dialog.getEditor());
+
+        String answer = dialog.showAndWait().orElse("");
+        try {
+            return answer.isBlank() ? null : Double.parseDouble(answer);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void allowSignedNumberOnly(TextField textField) {
+        Pattern pattern = Pattern.compile("-?\\d*|-?\\d+\\.\\d*");
+        textField.setTextFormatter(new TextFormatter<>((UnaryOperator<TextFormatter.Change>) change -> pattern.matcher(change.getControlNewText()).matches() ? change : null));
+    }
+
+    /**
+     * Adds the flights of a CSV or JSON timetable; see {@link ScheduleImporter} for the format.
+     */
+    @FXML
+    void importSchedule() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import a schedule");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Timetables", "*.csv", "*.json"),
+                new FileChooser.ExtensionFilter("CSV FILE", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON FILE", "*.json")
+        );
+        File file = fileChooser.showOpenDialog(flightTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Airline airline = Account.getCurrentUser().getAirline();
+        importButton.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return ScheduleImporter.importFile(airline, file.toPath());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((result, e) -> Platform.runLater(() -> {
+            importButton.setDisable(false);
+            if (e != null) {
+                e.printStackTrace();
+                Notifications.create().title("Schedule import").text(file.getName() + " could not be read.").showError();
+                return;
+            }
+            if (!result.getErrors().isEmpty()) {
+                DialogPane dialogPane = alert.getDialogPane();
+                Platform.runLater(() -> Palette.getDefaultPalette().usePalette(dialogPane.getScene()));
+                alert.setContentText((result.getImported() == 0 ? "Nothing was imported.\n" : result.getImported() + " flights were imported.\n") + String.join("\n", result.getErrors()));
+                parent.getScene().lookup("#overlay-layer").setDisable(false);
+                alert.showAndWait();
+                parent.getScene().lookup("#overlay-layer").setDisable(true);
+                return;
+            }
+            Notifications.create().title("Schedule import").text(result.getImported() + " flight(s) imported from " + file.getName() + ".").showInformation();
+        }));
+    }
+
+    /**
+     * Saves the passenger manifest of the selected flight, or of every flight of the airline when
+     * none is selected, as CSV or JSON.
+     */
+    @FXML
+    void exportManifest() {
+        Flight selectedFlight = flightTable.getSelectionModel().getSelectedItem();
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName(selectedFlight != null ? "Manifest_Flight_" + selectedFlight.getId() : "Manifest_" + Account.getCurrentUser().getAirline().getName());
+        FileChooser.ExtensionFilter csvFilter = new FileChooser.ExtensionFilter("CSV FILE", "*.csv");
+        FileChooser.ExtensionFilter jsonFilter = new FileChooser.ExtensionFilter("JSON FILE", "*.json");
+        fileChooser.getExtensionFilters().addAll(csvFilter, jsonFilter);
+        File file = fileChooser.showSaveDialog(flightTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        ManifestExporter.Format format = fileChooser.getSelectedExtensionFilter() == jsonFilter || file.getName().endsWith(".json")
+                ? ManifestExporter.Format.JSON
+                : ManifestExporter.Format.CSV;
+        Airline airline = Account.getCurrentUser().getAirline();
+        manifestButton.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                return selectedFlight != null
+                        ? ManifestExporter.export(List.of(selectedFlight.getId()), format, writer)
+                        : ManifestExporter.export(airline, Long.MIN_VALUE, Long.MAX_VALUE, format, writer);
+            } catch (IOException | SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((passengers, e) -> Platform.runLater(() -> {
+            manifestButton.setDisable(false);
+            if (e != null) {
+                e.printStackTrace();
+                Notifications.create().title("Manifest").text("The manifest could not be saved.").showError();
+            }
+            else {
+                Notifications.create().title("Manifest").text(passengers + " passenger(s) saved to " + file.getName() + ".").showInformation();
+            }
+        }));
+    }
+
+    /**
+     * Saves the boarding pass of every passenger on the selected flight, in seat order, as one
+     * multi-page file.
+     */
+    @FXML
+    void exportBoardingPasses() {
         Flight selectedFlight = flightTable.getSelectionModel().getSelectedItem();
+        if (selectedFlight == null) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("Boarding_Passes_Flight_" + selectedFlight.getId());
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("TIFF IMAGE", "*.tiff"));
+        File file = fileChooser.showSaveDialog(flightTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> new ReservationDao().read(selectedFlight))
+                .thenCompose(reservations -> TicketRenderer.writeAll(reservations, file))
+                .whenComplete((pages, e) -> Platform.runLater(() -> {
+                    if (e != null) {
+                        e.printStackTrace();
+                        Notifications.create().title("Boarding passes").text("The boarding passes could not be saved.").showError();
+                    }
+                    else if (pages == 0) {
+                        file.delete();
+                        Notifications.create().title("Boarding passes").text("No passenger has booked this flight yet.").showInformation();
+                    }
+                    else {
+                        Notifications.create().title("Boarding passes").text(pages + " boarding pass(es) saved to " + file.getName() + ".").showInformation();
+                    }
+                }));
+    }
+
+    private void setUpAnalytics() {
+        colRoute.setCellValueFactory(route -> new SimpleStringProperty(route.getValue().getRoute()));
+        colRouteFlights.setCellValueFactory(route -> new SimpleStringProperty(String.valueOf(route.getValue().getFlights())));
+        colRouteLoad.setCellValueFactory(route -> new SimpleStringProperty(String.format("%.0f%%", route.getValue().getLoadFactor() * 100)));
+        colRouteRevenue.setCellValueFactory(route -> new SimpleStringProperty(String.format("%.02f$", route.getValue().getRevenue())));
+        refreshAnalytics();
+    }
+
+    /**
+     * Re-reads the airline's figures on a background thread and shows them; calls made while one is
+     * pending are merged into it, and refreshes run one after the other.
+     */
+    private void refreshAnalytics() {
+        if (!analyticsPending.compareAndSet(false, true)) {
+            return;
+        }
+        AirlineAnalytics analytics = AirlineAnalytics.getInstance(Account.getCurrentUser().getAirline());
+        analyticsReader.execute(() -> {
+            analyticsPending.set(false);
+            AirlineAnalytics.Totals totals = analytics.getTotals();
+            List<AirlineAnalytics.Totals> routes = analytics.getRoutes();
+            XYChart.Series<String, Number> bookings = new XYChart.Series<>();
+            analytics.getBookingsPerDay().forEach((day, count) -> bookings.getData().add(new XYChart.Data<>(day.format(BOOKING_DAY_FORMATTER), count)));
+
+            Platform.runLater(() -> {
+                lblLoadFactor.setText(String.format("%.1f%% (%d/%d)", totals.getLoadFactor() * 100, totals.getBooked(), totals.getCapacity()));
+                lblRevenue.setText(String.format("%.02f$", totals.getRevenue()));
+                lblCabinRevenue.setText(String.format("First %.02f$ · Business %.02f$%nEconomy %.02f$ · Extras %.02f$",
+                        totals.getFirstRevenue(), totals.getBusinessRevenue(), totals.getEconomyRevenue(), totals.getSurcharges()));
+                routeTable.getItems().setAll(routes);
+                bookingsChart.getData().setAll(List.of(bookings));
+            });
+        });
+    }
+
+    /**
+     * Applies a flight written through {@link FlightDao} to the table, whichever screen wrote it.
+     */
+    private void onFlightChanged(DataEvent<Flight> event) {
+        refreshAnalytics();
+        if (event.getChange() == DataEvent.Change.INSERTED) {
+            // one flight, or every flight of an import
+            List<Flight> flights = event.getObjects().stream()
+                    .filter(flight -> flight.getAirline().getId() == Account.getCurrentUser().getAirline().getId())
+                    .toList();
+            if (flights.isEmpty()) {
+                return;
+            }
+            flights.forEach(searchIndex::put);
+            synchronized (pendingInserts) {
+                int pending = pendingInserts.size();
+                pendingInserts.addAll(flights);
+                if (pending > 0) {
+                    // already scheduled
+                    return;
+                }
+            }
+            Platform.runLater(this::applyPendingInserts);
+            return;
+        }
+
+        if (event.getChange() == DataEvent.Change.UPDATED) {
+            // only a full edit can move a flight to other airports; bulk updates send no object
+            if (event.getObject() != null && searchIndex.contains(event.getId())) {
+                searchIndex.put(event.getObject());
+            }
+            // edits in a row each send an event; one refresh covers them all
+            if (refreshPending.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    refreshPending.set(false);
+                    flightTable.refresh();
+                    refreshSearch();
+                });
+            }
+            return;
+        }
 
-        flightDao.delete(selectedFlight.getId());
+        event.getIds().forEach(searchIndex::remove);
+        synchronized (pendingDeletes) {
+            int pending = pendingDeletes.size();
+            pendingDeletes.addAll(event.getIds());
+            if (pending > 0) {
+                // already scheduled
+                return;
+            }
+        }
+        Platform.runLater(() -> {
+            Set<Integer> deleted;
+            synchronized (pendingDeletes) {
+                deleted = new HashSet<>(pendingDeletes);
+                pendingDeletes.clear();
+            }
+            @SuppressWarnings("unchecked")
+            ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
+            source.removeIf(row -> deleted.contains(row.getId()));
+            refreshSearch();
+        });
+    }
+
+    /**
+     * Adds the flights inserted since the last call to the top of the table in one change, so a
+     * bulk import does not rescan the table once per flight.
+     */
+    private void applyPendingInserts() {
+        List<Flight> inserted;
+        synchronized (pendingInserts) {
+            inserted = new ArrayList<>(pendingInserts);
+            pendingInserts.clear();
+        }
         @SuppressWarnings("unchecked")
         ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
-        source.remove(selectedFlight);
+        Set<Integer> shown = source.stream().map(Flight::getId).collect(Collectors.toSet());
+        inserted.removeIf(flight -> !shown.add(flight.getId()));
+        // newest first, as single additions are
+        Collections.reverse(inserted);
+        source.addAll(0, inserted);
+        refreshSearch();
     }
 
     @FXML
@@ -580,55 +1001,44 @@ public class DashboardController implements Initializable {
         }
     }
 
+    /**
+     * Filters the table as the user types. The query runs against {@link #searchIndex} off the FX
+     * thread once typing pauses; a search overtaken by a newer keystroke stops early and its
+     * result is dropped.
+     */
     private void findFlight() {
-
+        searchDelay.setOnFinished(event -> search());
         searchBar.textProperty().addListener((observableValue, oldValue, newValue) -> {
+            // cancels the search in progress, if any
+            searchGeneration.incrementAndGet();
+            if (newValue.isBlank()) {
+                searchDelay.stop();
+                search();
+            }
+            else {
+                searchDelay.playFromStart();
+            }
+        });
+    }
 
-            results.setPredicate(flight -> {
-
-                if (newValue.isBlank()) {
-                    return true;
-                }
-
-                String keyword = newValue.toLowerCase();
+    private void search() {
+        int generation = searchGeneration.incrementAndGet();
+        String query = searchBar.getText();
+        CompletableFuture.supplyAsync(() -> searchIndex.search(query, () -> searchGeneration.get() != generation))
+                .thenAccept(ids -> Platform.runLater(() -> {
+                    if (searchGeneration.get() != generation) {
+                        return;
+                    }
+                    results.setPredicate(ids == null ? flight -> true : flight -> ids.contains(flight.getId()));
+                }));
+    }
 
-                if (String.valueOf(flight.getId()).equals(keyword)) {
-                    return true;
-                }
-                else if (flight.getDepAirport().getName().toLowerCase().contains(keyword)) {
-                    return true;
-                }
-                else if (flight.getDepAirport().getCountry().toLowerCase().contains(keyword)) {
-                    return true;
-                }
-                else if (flight.getDepAirport().getCity().toLowerCase().contains(keyword)) {
-                    return true;
-                }
-                else if (flight.getDepAirport().getIATA().toLowerCase().equals(keyword)) {
-                    return true;
-                }
-                else if (flight.getDepAirport().getICAO().toLowerCase().equals(keyword)) {
-                    return true;
-                }
-                else if (flight.getArrAirport().getName().toLowerCase().contains(keyword)) {
-                    return true;
-                }
-                else if (flight.getArrAirport().getCountry().toLowerCase().contains(keyword)) {
-                    return true;
-                }
-                else if (flight.getArrAirport().getCity().toLowerCase().contains(keyword)) {
-                    return true;
-                }
-                else if (flight.getArrAirport().getIATA().toLowerCase().equals(keyword)) {
-                    return true;
-                }
-                else if (flight.getArrAirport().getICAO().toLowerCase().equals(keyword)) {
-                    return true;
-                }
-                else {
-                    return false;
-                }
-            });
-        });
+    /**
+     * Runs the current query again after the table's flights changed.
+     */
+    private void refreshSearch() {
+        if (!searchBar.getText().isBlank()) {
+            search();
+        }
     }
 }
@@ -1,6 +1,10 @@
 package controller;
 
+import data.DataEvent;
+import data.DataEventBus;
+import data.ReservationDao;
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
@@ -15,15 +19,25 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Circle;
+import javafx.stage.FileChooser;
 import models.Account;
+import models.Favorite;
 import models.Flight;
+import models.Reservation;
+import org.controlsfx.control.Notifications;
+import util.TicketRenderer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 public class HomePageController implements Initializable {
 
@@ -60,8 +74,13 @@ public class HomePageController implements Initializable {
     @FXML
     private Label lblResultsCounter;
 
-    private final FilteredList<Flight> results = new FilteredList<>(Account.getCurrentUser().getReservedFlights());
+    @FXML
+    private Button btnDownloadTickets;
+
+    private final FilteredList<Flight> results = new FilteredList<>(FXCollections.observableArrayList());
     private final SortedList<Flight> sortedResults = new SortedList<>(results);
+    // reservation id -> reserved flight shown in the list, so deletions can be applied by id
+    private final HashMap<Integer, Flight> reservedFlights = new HashMap<>();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -141,6 +160,9 @@ public class HomePageController implements Initializable {
         btnFavorite.setOnAction(e -> getFavoriteFlights());
         btnArchive.setOnAction(e -> getArchiveFlights());
         Platform.runLater(this::getUpcomingFlights);
+
+        DataEventBus.getInstance().subscribe(this, Reservation.class, HomePageController::onReservationChanged);
+        DataEventBus.getInstance().subscribe(this, Favorite.class, HomePageController::onFavoriteChanged);
     }
 
     private void alwaysOneSelected() {
@@ -152,9 +174,9 @@ public class HomePageController implements Initializable {
 
     private void getUpcomingFlights() {
         new Thread(() -> {
-            ObservableList<Flight> source = (ObservableList<Flight> ) results.getSource();
-            source.clear();
-            source.addAll(Account.getCurrentUser().getReservedFlights());
+            List<Flight> flights = readReservedFlights();
+            ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
+            source.setAll(flights);
             results.setPredicate(null);
             results.setPredicate(flight -> flight.getDepDatetime().isAfter(LocalDateTime.now()));
 
@@ -167,8 +189,7 @@ public class HomePageController implements Initializable {
     private void getFavoriteFlights() {
         new Thread(() -> {
             ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
-            source.clear();
-            source.addAll(Account.getCurrentUser().getFavoriteFlights());
+            source.setAll(Account.getCurrentUser().getFavoriteFlights());
             results.setPredicate(null);
             results.setPredicate(flight -> true);
 
@@ -180,9 +201,9 @@ public class HomePageController implements Initializable {
     }
     private void getArchiveFlights() {
         new Thread(() -> {
+            List<Flight> flights = readReservedFlights();
             ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
-            source.clear();
-            source.addAll(Account.getCurrentUser().getReservedFlights());
+            source.setAll(flights);
             results.setPredicate(null);
             results.setPredicate(flight -> flight.getDepDatetime().isBefore(LocalDateTime.now()));
 
@@ -192,6 +213,128 @@ public class HomePageController implements Initializable {
             });
         }).start();
     }
+    private List<Flight> readReservedFlights() {
+        HashMap<Integer, Flight> flights = new HashMap<>();
+        List<Flight> list = new ArrayList<>();
+        synchronized (reservedFlights) {
+            reservedFlights.clear();
+        }
+        new ReservationDao().read(Account.getCurrentUser()).forEach(reservation -> {
+            if (reservation.getFlight() == null) {
+                // its flight has been deleted
+                return;
+            }
+            // a group booking is several reservations of the same flight; list it once
+            Flight flight = flights.computeIfAbsent(reservation.getFlight().getId(), id -> {
+                list.add(reservation.getFlight());
+                return reservation.getFlight();
+            });
+            synchronized (reservedFlights) {
+                reservedFlights.put(reservation.getId(), flight);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Saves the tickets of every upcoming reservation, soonest first, as one multi-page file.
+     */
+    @FXML
+    void downloadUpcomingTickets() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("Upcoming_Tickets");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("TIFF IMAGE", "*.tiff"));
+        File file = fileChooser.showSaveDialog(parent.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        btnDownloadTickets.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            long now = Flight.toEpochMinute(LocalDateTime.now());
+            List<Reservation> tickets = new ArrayList<>(new ReservationDao().read(Account.getCurrentUser()));
+            tickets.removeIf(reservation -> reservation.getFlight() == null || reservation.getFlight().getDepEpochMinute() < now);
+            tickets.sort(Comparator.comparingLong(reservation -> reservation.getFlight().getDepEpochMinute()));
+            return tickets;
+        }).thenCompose(tickets -> TicketRenderer.writeAll(tickets, file)).whenComplete((pages, e) -> Platform.runLater(() -> {
+            btnDownloadTickets.setDisable(false);
+            if (e != null) {
+                e.printStackTrace();
+                Notifications.create().title("Tickets").text("The tickets could not be saved.").showError();
+            }
+            else if (pages == 0) {
+                file.delete();
+                Notifications.create().title("Tickets").text("You have no upcoming flights.").showInformation();
+            }
+            else {
+                Notifications.create().title("Tickets").text(pages + " ticket(s) saved to " + file.getName() + ".").showInformation();
+            }
+        }));
+    }
+
+    private boolean isShowingReservations() {
+        return tabsGroup.getSelectedToggle() != btnFavorite;
+    }
+
+    private void onReservationChanged(DataEvent<Reservation> event) {
+        Reservation reservation = event.getObject();
+        if (reservation != null && reservation.getAccount().getId() != Account.getCurrentUser().getId()) {
+            return;
+        }
+
+        Platform.runLater(() -> {
+            @SuppressWarnings("unchecked")
+            ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
+            synchronized (reservedFlights) {
+                if (event.getChange() == DataEvent.Change.DELETED) {
+                    Flight flight = reservedFlights.remove(event.getId());
+                    if (flight != null && !reservedFlights.containsValue(flight) && isShowingReservations()) {
+                        source.remove(flight);
+                    }
+                }
+                else if (!reservedFlights.containsKey(event.getId())) {
+                    Flight flight = reservedFlights.values().stream()
+                            .filter(shown -> shown.getId() == reservation.getFlight().getId())
+                            .findFirst()
+                            .orElse(null);
+                    if (flight == null) {
+                        flight = reservation.getFlight();
+                        if (isShowingReservations()) {
+                            source.add(flight);
+                        }
+                    }
+                    reservedFlights.put(event.getId(), flight);
+                }
+            }
+            lblResultsCounter.setText("Results(" + results.size() + ")");
+            refreshPagination();
+        });
+    }
+
+    private void onFavoriteChanged(DataEvent<Favorite> event) {
+        Favorite favorite = event.getObject();
+        if (favorite == null || favorite.getAccount().getId() != Account.getCurrentUser().getId()) {
+            return;
+        }
+
+        Platform.runLater(() -> {
+            if (isShowingReservations()) {
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            ObservableList<Flight> source = (ObservableList<Flight>) results.getSource();
+            int flightId = favorite.getFlight().getId();
+            if (event.getChange() == DataEvent.Change.DELETED) {
+                source.removeIf(flight -> flight.getId() == flightId);
+            }
+            else if (source.stream().noneMatch(flight -> flight.getId() == flightId)) {
+                source.add(favorite.getFlight());
+            }
+            lblResultsCounter.setText("Results(" + results.size() + ")");
+            refreshPagination();
+        });
+    }
+
     private void refreshPagination() {
         int itemsPerPage = 4;
         int nbrPages = (int) Math.ceil((double) sortedResults.size() / itemsPerPage);
@@ -200,32 +343,12 @@ public class HomePageController implements Initializable {
     }
 
     private void sortByClosestDate() {
-        sortedResults.setComparator((flight1, flight2) -> {
-            if (flight1.getDepDatetime().isAfter(flight2.getDepDatetime())) {
-                return 1;
-            }
-
-            if (flight1.getDepDatetime().isBefore(flight2.getDepDatetime())) {
-                return -1;
-            }
-
-            return 0;
-        });
+        sortedResults.setComparator(Comparator.comparingLong(Flight::getDepEpochMinute));
         Platform.runLater(this::refreshPagination);
     }
 
     private void sortByFurthestDate() {
-        sortedResults.setComparator((flight1, flight2) -> {
-            if (flight1.getDepDatetime().isAfter(flight2.getDepDatetime())) {
-                return -1;
-            }
-
-            if (flight1.getDepDatetime().isBefore(flight2.getDepDatetime())) {
-                return 1;
-            }
-
-            return 0;
-        });
+        sortedResults.setComparator(Comparator.comparingLong(Flight::getDepEpochMinute).reversed());
         Platform.runLater(this::refreshPagination);
     }
 
@@ -1,5 +1,6 @@
 package controller;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -24,6 +25,8 @@ import view.Palette;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.Stack;
 
@@ -53,7 +56,12 @@ public class NavigationBarController implements Initializable {
     private final ObservableList<Node> searchPages = FXCollections.observableList(ApplicationController.searchPageStack);
 
     private final ObservableList<Node> homePages = FXCollections.observableList(ApplicationController.homePageStack);
-    private Node accountPages;
+
+    public static final String HOME_PAGE = "/view/HomePage.fxml";
+    public static final String SEARCH_PAGE = "/view/SearchPage/SearchPage.fxml";
+    public static final String ACCOUNT_PAGE = "/view/accountPage/AccountPage.fxml";
+    // pages built so far this session, by FXML path; the controller is the page's user data
+    private final HashMap<String, Parent> pages = new HashMap<>();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -75,33 +83,56 @@ public class NavigationBarController implements Initializable {
         });
     }
 
-    private Node loadPage (String path) {
-        Parent page = null;
+    /**
+     * The page of an FXML file, built on first use and kept for the rest of the session.
+     */
+    private Parent getPage(String path) {
+        Parent page = pages.get(path);
+        if (page != null) {
+            return page;
+        }
         try {
             FXMLLoader pageLoader = new FXMLLoader(getClass().getResource(path));
             page = pageLoader.load();
             VBox.setVgrow(page, Priority.ALWAYS);
             page.setUserData(pageLoader.getController());
-
-            StackPane content = (StackPane) navigationBar.getParent().getParent().lookup("#content");
-            content.getChildren().clear();
-            content.getChildren().add(page);
+            pages.put(path, page);
         } catch (IOException e) {
             e.printStackTrace();
         }
         return page;
     }
 
-    private void loadPage (ObservableList<Node> pageList) {
-        Pane content = (StackPane) navigationBar.getParent().getParent().lookup("#content");
-        content.getChildren().clear();
-        content.getChildren().addAll(pageList);
+    /**
+     * Builds pages the user is likely to open next while the application is idle, one per pulse,
+     * so opening them later is immediate. Their slow reads already run in the background.
+     */
+    public void preload(String... paths) {
+        for (String path : paths) {
+            Platform.runLater(() -> getPage(path));
+        }
     }
 
-    private void loadPage (Node page) {
+    /**
+     * Puts pages on screen, the last one on top, and tells the controllers of the top page that
+     * goes away and the one that comes up.
+     */
+    private void loadPage (List<? extends Node> pageList) {
         Pane content = (StackPane) navigationBar.getParent().getParent().lookup("#content");
+        Node hidden = content.getChildren().isEmpty() ? null : content.getChildren().get(content.getChildren().size() - 1);
+        Node shown = pageList.isEmpty() ? null : pageList.get(pageList.size() - 1);
+
         content.getChildren().clear();
-        content.getChildren().add(page);
+        content.getChildren().addAll(pageList);
+
+        if (hidden != shown) {
+            if (hidden != null && hidden.getUserData() instanceof PageLifecycle page) {
+                page.onHide();
+            }
+            if (shown != null && shown.getUserData() instanceof PageLifecycle page) {
+                page.onShow();
+            }
+        }
     }
 
     @FXML
@@ -133,13 +164,9 @@ public class NavigationBarController implements Initializable {
     AccountPageController openAccount(ActionEvent event) {
         accounBtn.setSelected(true);
 
-        if (accountPages == null ) {
-            accountPages = loadPage("/view/accountPage/AccountPage.fxml");
-        }
-        else {
-            loadPage(accountPages);
-        }
-        return (AccountPageController) accountPages.getUserData();
+        Parent accountPage = getPage(ACCOUNT_PAGE);
+        loadPage(List.of(accountPage));
+        return (AccountPageController) accountPage.getUserData();
     }
 
     @FXML
@@ -147,23 +174,19 @@ public class NavigationBarController implements Initializable {
         homeBtn.setSelected(true);
 
         if (homePages.isEmpty()) {
-            ApplicationController.homePageStack.push(loadPage("/view/HomePage.fxml"));
-        }
-        else {
-            loadPage(homePages);
+            ApplicationController.homePageStack.push(getPage(HOME_PAGE));
         }
+        loadPage(homePages);
     }
 
     @FXML
-    void openSearch(ActionEvent event) {
+    public void openSearch(ActionEvent event) {
         searchBtn.setSelected(true);
 
         if (searchPages.isEmpty()) {
-            ApplicationController.searchPageStack.push(loadPage("/view/SearchPage/SearchPage.fxml"));
-        }
-        else {
-            loadPage(searchPages);
+            ApplicationController.searchPageStack.push(getPage(SEARCH_PAGE));
         }
+        loadPage(searchPages);
     }
 
     @FXML
@@ -0,0 +1,15 @@
+package controller;
+
+/**
+ * Implemented by the controllers of pages that are built once and kept for the session, to hear
+ * when their page is put on screen or taken off it. A kept page refreshes what may have changed
+ * in {@link #onShow()} instead of being rebuilt.
+ */
+public interface PageLifecycle {
+
+    default void onShow() {
+    }
+
+    default void onHide() {
+    }
+}
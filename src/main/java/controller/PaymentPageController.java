@@ -2,6 +2,7 @@ package controller;
 
 import data.CreditCardDao;
 import data.ReservationDao;
+import data.SeatHoldManager;
 import javafx.beans.property.SimpleListProperty;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -21,6 +22,8 @@ import view.Palette;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.ResourceBundle;
 
@@ -81,6 +84,9 @@ public class PaymentPageController implements Initializable {
     private Spinner<Double> spinnerWeight;
     private Flight flight;
     private Seat selectedSeat;
+    private List<Seat> selectedSeats;
+    // the account's reservations on the flight being changed, empty for a new booking
+    private List<Reservation> currentReservations = List.of();
     private double classPrice;
     private double luggagePrice;
     private double weightPrice;
@@ -131,46 +137,88 @@ public class PaymentPageController implements Initializable {
         }
     }
 
-    @FXML
-    void payNow(ActionEvent event) {
-        ReservationDao reservationDao = new ReservationDao();
-        if (cardGroup.getToggles().isEmpty()) {
-            parent.getScene().lookup("#overlay-layer").setDisable(false);
+    private void showWarning(String message) {
+        parent.getScene().lookup("#overlay-layer").setDisable(false);
 
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setHeaderText("Warning");
-            alert.setContentText("Please add a credit card to continue");
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setHeaderText("Warning");
+        alert.setContentText(message);
 
-            DialogPane dialogPane = alert.getDialogPane();
+        DialogPane dialogPane = alert.getDialogPane();
 
-            Palette.getDefaultPalette().usePalette(dialogPane.getScene());
-            dialogPane.getStylesheets().add(getClass().getResource("/style/Application.css").toExternalForm());
+        Palette.getDefaultPalette().usePalette(dialogPane.getScene());
+        dialogPane.getStylesheets().add(getClass().getResource("/style/Application.css").toExternalForm());
 
-            Stage alertWindow = (Stage) dialogPane.getScene().getWindow();
-            alertWindow.initStyle(StageStyle.TRANSPARENT);
-            dialogPane.getScene().setFill(Color.TRANSPARENT);
-            alertWindow.initOwner(parent.getScene().getWindow());
+        Stage alertWindow = (Stage) dialogPane.getScene().getWindow();
+        alertWindow.initStyle(StageStyle.TRANSPARENT);
+        dialogPane.getScene().setFill(Color.TRANSPARENT);
+        alertWindow.initOwner(parent.getScene().getWindow());
 
-            alert.showAndWait();
-            parent.getScene().lookup("#overlay-layer").setDisable(true);
+        alert.showAndWait();
+        parent.getScene().lookup("#overlay-layer").setDisable(true);
+    }
+
+    @FXML
+    void payNow(ActionEvent event) {
+        ReservationDao reservationDao = new ReservationDao();
+        if (cardGroup.getToggles().isEmpty()) {
+            showWarning("Please add a credit card to continue");
             return;
         }
-        Reservation reservation = new Reservation(flight, Account.getCurrentUser().getId(), selectedSeat, spinnerLuggage.getValue(), spinnerWeight.getValue());
+        int account = Account.getCurrentUser().getId();
+        List<Reservation> reservations = new ArrayList<>();
+        for (Seat seat : selectedSeats) {
+            if (seat == selectedSeat) {
+                reservations.add(new Reservation(flight, account, seat, spinnerLuggage.getValue(), spinnerWeight.getValue()));
+            }
+            else {
+                reservations.add(new Reservation(flight, account, seat, 0, 0));
+            }
+        }
+        Reservation reservation = reservations.get(0);
+        if (currentReservations.size() == 1) {
+            reservation.setId(currentReservations.get(0).getId());
+        }
 
-        if (Account.getCurrentUser().hasReservation(flight)) {
-            reservationDao.update(Account.getCurrentUser().getReservation(flight).getId(), reservation);
+        ReservationDao.BookingResult result;
+        if (!holdSelectedSeats()) {
+            result = ReservationDao.BookingResult.SEAT_TAKEN;
+        }
+        else if (reservations.size() == 1 && currentReservations.size() <= 1) {
+            result = reservationDao.book(reservation);
         }
         else {
-            reservationDao.create(reservation);
+            result = reservationDao.bookGroup(reservations, currentReservations);
         }
 
+        switch (result) {
+            case SEAT_TAKEN -> {
+                if (selectedSeats.size() == 1) {
+                    showWarning("Seat " + selectedSeat.getColumn() + selectedSeat.getRow() + " has just been booked by another passenger. Please choose another seat.");
+                    selectedSeat.setSelected(false);
+                    selectedSeat.getStyleClass().add("UnavailableSeatIcon");
+                    selectedSeat.setDisable(true);
+                }
+                else {
+                    showWarning("One of the selected seats has just been booked by another passenger. Please choose other seats.");
+                }
+                goBack(new ActionEvent());
+                return;
+            }
+            case FAILED -> {
+                showWarning("The reservation could not be saved. Please try again.");
+                return;
+            }
+        }
+        releaseSelectedSeats();
+
         try {
             FXMLLoader ticketLoader = new FXMLLoader(getClass().getResource("/view/SearchPage/TicketPage.fxml"));
             Parent page = ticketLoader.load();
             VBox.setVgrow(page, Priority.ALWAYS);
 
             TicketPageController ticketController = ticketLoader.getController();
-            ticketController.setData(reservation);
+            ticketController.setData(reservations);
 
             ApplicationController.navBarController.pushPage(page);
 
@@ -181,8 +229,28 @@ public class PaymentPageController implements Initializable {
         }
     }
 
+    private boolean holdSelectedSeats() {
+        SeatHoldManager seatHoldManager = SeatHoldManager.getInstance();
+        int account = Account.getCurrentUser().getId();
+        for (Seat seat : selectedSeats) {
+            if (!seatHoldManager.hold(flight.getId(), seat.getPrimaryKey(), account)) {
+                releaseSelectedSeats();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void releaseSelectedSeats() {
+        SeatHoldManager seatHoldManager = SeatHoldManager.getInstance();
+        int account = Account.getCurrentUser().getId();
+        selectedSeats.forEach(seat -> seatHoldManager.release(flight.getId(), seat.getPrimaryKey(), account));
+    }
+
     @FXML
     void goBack(ActionEvent event) {
+        releaseSelectedSeats();
+
         StackPane content = (StackPane) parent.getScene().lookup("#content");
         int recentChild = content.getChildren().size() - 1;
         content.getChildren().remove(recentChild);
@@ -196,8 +264,13 @@ public class PaymentPageController implements Initializable {
     }
 
     public void setData(Flight flight, Seat selectedSeat) {
+        setData(flight, List.of(selectedSeat));
+    }
+
+    public void setData(Flight flight, List<Seat> selectedSeats) {
         this.flight = flight;
-        this.selectedSeat = selectedSeat;
+        this.selectedSeats = selectedSeats;
+        this.selectedSeat = selectedSeats.get(0);
         lblDepAirport.setText(flight.getDepAirport().getName());
         lblDepCity.setText(flight.getDepAirport().getCity() + " - " + flight.getDepAirport().getCountry());
         lblDepDate.setText(flight.getDepDatetime().toLocalDate().toString());
@@ -210,21 +283,21 @@ public class PaymentPageController implements Initializable {
         lblArrDate.setText(flight.getArrDatetime().toLocalDate().toString());
         lblArrTime.setText(flight.getArrDatetime().toLocalTime().toString());
 
-        lblClassType.setText(selectedSeat.getType() + " class");
-        switch (selectedSeat.getType().toLowerCase()) {
-            case "first" -> {
-                classPrice = flight.getFirstPrice();
-                lblClassPrice.setText(flight.getFirstPriceFormatted());
-            }
-            case "business" -> {
-                classPrice = flight.getBusinessPrice();
-                lblClassPrice.setText(flight.getBusinessPriceFormatted());
-            }
-            case "economy" -> {
-                classPrice = flight.getEconomyPrice();
-                lblClassPrice.setText(flight.getEconomyPriceFormatted());
+        if (selectedSeats.size() == 1) {
+            lblClassType.setText(selectedSeat.getType() + " class");
+        }
+        else {
+            lblClassType.setText(selectedSeats.size() + " seats");
+        }
+        classPrice = 0;
+        for (Seat seat : selectedSeats) {
+            switch (seat.getType().toLowerCase()) {
+                case "first" -> classPrice += flight.getFirstPrice();
+                case "business" -> classPrice += flight.getBusinessPrice();
+                case "economy" -> classPrice += flight.getEconomyPrice();
             }
         }
+        lblClassPrice.setText(String.format("%.02f$", classPrice));
 
         {
             SpinnerValueFactory<Integer> valueFactory = new SpinnerValueFactory.IntegerSpinnerValueFactory(0, 5);
@@ -251,10 +324,10 @@ public class PaymentPageController implements Initializable {
             });
         }
 
-        if (Account.getCurrentUser().hasReservation(flight)) {
-            Reservation reservation = Account.getCurrentUser().getReservation(flight);
-            spinnerWeight.getValueFactory().setValue(reservation.getWeight());
-            spinnerLuggage.getValueFactory().setValue(reservation.getNbrLuggages());
+        currentReservations = Account.getCurrentUser().getReservations(flight);
+        if (!currentReservations.isEmpty()) {
+            spinnerWeight.getValueFactory().setValue(currentReservations.stream().mapToDouble(Reservation::getWeight).sum());
+            spinnerLuggage.getValueFactory().setValue(currentReservations.stream().mapToInt(Reservation::getNbrLuggages).sum());
         }
 
         lblTotalPrice.setText(calculateTotalPrice() + "$");
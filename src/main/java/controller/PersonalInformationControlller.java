@@ -38,7 +38,7 @@ import java.util.ResourceBundle;
  * 
  * FIXED: Changed int to Long for passenger ID to support larger IDs
  */
-public class PersonalInformationControlller implements Initializable {
+public class PersonalInformationControlller implements Initializable, PageLifecycle {
 
     // Original Fields
     @FXML private SearchableComboBox<String> countryBox;
@@ -117,6 +117,15 @@ public class PersonalInformationControlller implements Initializable {
         loadEnhancements();
     }
   
+    /**
+     * Shows the account as it is now; edits left unsaved when the tab was left are dropped, as
+     * they were when the tab was rebuilt on every visit.
+     */
+    @Override
+    public void onShow() {
+        setData();
+    }
+
     @FXML
     void setData() {
         Account user = Account.getCurrentUser();
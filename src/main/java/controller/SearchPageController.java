@@ -1,10 +1,14 @@
 package controller;
 
 import data.AirportDao;
+import data.FareCalendarDao;
+import data.FlightColumns;
+import data.RoutePriceMatrix;
 import data.FlightDao;
+import data.FlightSearchCache;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
-import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
+import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -14,16 +18,30 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import models.DayFare;
 import models.Flight;
+import models.RouteFare;
 import org.controlsfx.control.SearchableComboBox;
 
 import java.io.IOException;
 import java.net.URL;
-import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
-public class SearchPageController implements Initializable {
+public class SearchPageController implements Initializable, PageLifecycle {
 
     @FXML
     private SearchableComboBox<String> arrCity;
@@ -43,6 +61,24 @@ public class SearchPageController implements Initializable {
     @FXML
     private DatePicker depDateBefore;
 
+    @FXML
+    private HBox fareDays;
+
+    @FXML
+    private HBox destinationsBox;
+
+    @FXML
+    private HBox destinations;
+
+    @FXML
+    private Label lblDestinations;
+
+    @FXML
+    private ChoiceBox<String> inputCabinBox;
+
+    @FXML
+    private Spinner<Integer> inputSeats;
+
     @FXML
     private ChoiceBox<String> inputSortBox;
 
@@ -58,21 +94,57 @@ public class SearchPageController implements Initializable {
     @FXML
     private ScrollPane scrollPane;
 
-    private final FilteredList<Flight> results = new FilteredList<>(FlightDao.getInstance().getFlightsList());
-    private final SortedList<Flight> sortedResults = new SortedList<>(results);
+    // ids of the matching flights in display order; a Flight is only read for the cards of the current page
+    private int[] results = new int[0];
+    private FlightColumns.Order order = FlightColumns.Order.ID_DESCENDING;
+
+    private static final int FARE_DAYS_AROUND = 3;
+    private static final DateTimeFormatter FARE_DAY_FORMATTER = DateTimeFormatter.ofPattern("EEE d MMM");
+    private final FareCalendarDao fareCalendarDao = new FareCalendarDao();
+    private LocalDate fareCalendarCenter = LocalDate.now();
+    // bumped on every refresh so a slow read never overwrites a newer window
+    private int fareCalendarGeneration = 0;
+    // bumped on every refresh so slow suggestions never replace those of a newer search
+    private int destinationsGeneration = 0;
+    // reads fare months and destinations one at a time, however fast the filters change
+    private static final ExecutorService fareReader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fare-calendar");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // how long the filters must stay unchanged before a search runs
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(200));
+    // bumped by every filter change, so an outdated search stops early and its result is dropped
+    private final AtomicInteger searchGeneration = new AtomicInteger();
+    private static final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pendingSearch;
+    private boolean isHidden = false;
 
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         parent.getStylesheets().add(getClass().getResource("/style/SearchPage.css").toExternalForm());
-        lblResultsCounter.setText("Results(" + results.size() + ")");
-
         depCountry.setItems(AirportDao.getCountryList());
         arrCountry.setItems(AirportDao.getCountryList());
 
         depCountry.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> depCity.setItems(AirportDao.getCityList(newValue)));
         arrCountry.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> arrCity.setItems(AirportDao.getCityList(newValue)));
 
+        // search as the filters change
+        searchDelay.setOnFinished(event -> search(new ActionEvent()));
+        for (ObservableValue<?> filter : List.of(
+                depCountry.getSelectionModel().selectedItemProperty(), depCity.getSelectionModel().selectedItemProperty(),
+                arrCountry.getSelectionModel().selectedItemProperty(), arrCity.getSelectionModel().selectedItemProperty(),
+                depDateAfter.valueProperty(), depDateBefore.valueProperty(), inputSeats.valueProperty(),
+                inputCabinBox.getSelectionModel().selectedItemProperty())) {
+            filter.addListener((observable, oldValue, newValue) -> scheduleSearch());
+        }
+
         // Set up ComboBox
         inputSortBox.getItems().addAll("","Closest Date", "Furthest Date");
         inputSortBox.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
@@ -88,11 +160,15 @@ public class SearchPageController implements Initializable {
         });
 
 
+        // Set up the availability filter
+        inputSeats.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 9));
+        inputCabinBox.getItems().addAll("Any class", "First", "Business", "Economy");
+        inputCabinBox.getSelectionModel().selectFirst();
+
         // set up the pagination
         pagination.setMaxPageIndicatorCount(10);
         int itemsPerPage = 5;
-        int nbrPages = (int) Math.ceil((double) sortedResults.size() / itemsPerPage);
-        pagination.setPageCount(nbrPages == 0 ? 1 : nbrPages);
+        pagination.setPageCount(1);
 
         pagination.setPageFactory((pageIndex) -> {
             VBox page = new VBox();
@@ -101,8 +177,12 @@ public class SearchPageController implements Initializable {
             int lastItemIndex = (pageIndex + 1) * itemsPerPage;
 
 
-            for (int i = firstItemIndex; i < Math.min(lastItemIndex, sortedResults.size()) ; i++) {
-                Flight flight = sortedResults.get(i);
+            int[] pageResults = results;
+            for (int i = firstItemIndex; i < Math.min(lastItemIndex, pageResults.length) ; i++) {
+                Flight flight = FlightDao.getInstance().read(pageResults[i]);
+                if (flight == null) {
+                    continue;
+                }
                 try {
                     FXMLLoader cardLoader = new FXMLLoader(getClass().getResource("/view/SearchPage/FlightCard.fxml"));
                     HBox card = cardLoader.load();
@@ -120,6 +200,25 @@ public class SearchPageController implements Initializable {
         search(new ActionEvent());
     }
 
+    /**
+     * Searches again when the page comes back, as seats may have been booked in the meantime.
+     */
+    @Override
+    public void onShow() {
+        if (isHidden) {
+            isHidden = false;
+            search(new ActionEvent());
+        }
+    }
+
+    @Override
+    public void onHide() {
+        isHidden = true;
+        // nothing is shown until the page comes back, which searches again
+        searchDelay.stop();
+        searchGeneration.incrementAndGet();
+    }
+
     @FXML
     void goToTop(ActionEvent event) {
         scrollPane.setVvalue(0);
@@ -140,98 +239,193 @@ public class SearchPageController implements Initializable {
         arrCity.getSelectionModel().select(tempDepCity);
     }
 
+    /**
+     * Runs a search once the filters have stopped changing for a moment, so picking a country, then
+     * a city, then dates does not search at every step.
+     */
+    private void scheduleSearch() {
+        // cancels the search in progress, if any
+        searchGeneration.incrementAndGet();
+        searchDelay.playFromStart();
+    }
+
+    /**
+     * Searches with the current filters in the background and shows the result, unless the filters
+     * change again first.
+     */
     @FXML
     void search(ActionEvent event) {
-
-        results.setPredicate(flight -> {
-            if (flight.getDepDatetime().isBefore(LocalDateTime.now())) {
-                return false;
-            }
-
-            if (depCountry.getSelectionModel().getSelectedItem() != null && !depCountry.getSelectionModel().getSelectedItem().isBlank()) {
-                if (!flight.getDepAirport().getCountry().equals(depCountry.getSelectionModel().getSelectedItem())) {
-                    return false;
-                }
+        searchDelay.stop();
+        int generation = searchGeneration.incrementAndGet();
+        BooleanSupplier isOutdated = () -> searchGeneration.get() != generation;
+
+        String cabin = inputCabinBox.getSelectionModel().getSelectedIndex() > 0 ? inputCabinBox.getValue() : null;
+        int seats = inputSeats.getValue();
+        FlightColumns.Order searchOrder = order;
+
+        Set<Integer> depAirports = AirportDao.getAirportIds(depCountry.getSelectionModel().getSelectedItem(), depCity.getSelectionModel().getSelectedItem());
+        Set<Integer> arrAirports = AirportDao.getAirportIds(arrCountry.getSelectionModel().getSelectedItem(), arrCity.getSelectionModel().getSelectedItem());
+
+        long from = depDateAfter.getValue() != null ? Flight.toEpochMinute(depDateAfter.getValue().atStartOfDay()) : Flight.NO_DATETIME;
+        long to = depDateBefore.getValue() != null ? Flight.toEpochMinute(depDateBefore.getValue().plusDays(1).atStartOfDay()) : Flight.NO_DATETIME;
+
+        if (pendingSearch != null) {
+            // one not started yet is dropped; one running notices it is outdated
+            pendingSearch.cancel(false);
+        }
+        pendingSearch = searcher.submit(() -> {
+            if (isOutdated.getAsBoolean()) {
+                return;
             }
-
-            if (arrCountry.getSelectionModel().getSelectedItem() != null && !arrCountry.getSelectionModel().getSelectedItem().isBlank()) {
-                if (!flight.getArrAirport().getCountry().equals(arrCountry.getSelectionModel().getSelectedItem())) {
-                    return false;
+            int[] found = FlightSearchCache.getInstance().search(depAirports, arrAirports, from, to, cabin, seats, searchOrder, isOutdated);
+            Platform.runLater(() -> {
+                if (found == null || isOutdated.getAsBoolean()) {
+                    return;
                 }
-            }
+                showResults(found);
+            });
+        });
+    }
 
-            if (depCity.getSelectionModel().getSelectedItem() != null && !depCity.getSelectionModel().getSelectedItem().isBlank()) {
-                if (!flight.getDepAirport().getCity().equals(depCity.getSelectionModel().getSelectedItem())) {
-                    return false;
-                }
-            }
+    private void showResults(int[] found) {
+        results = found;
+        lblResultsCounter.setText("Results(" + results.length + ")");
+        refreshPage();
 
-            if (arrCity.getSelectionModel().getSelectedItem() != null && !arrCity.getSelectionModel().getSelectedItem().isBlank()) {
-                if (!flight.getArrAirport().getCity().equals(arrCity.getSelectionModel().getSelectedItem())) {
-                    return false;
-                }
-            }
+        fareCalendarCenter = depDateAfter.getValue() != null ? depDateAfter.getValue() : LocalDate.now();
+        refreshFareCalendar();
+        refreshDestinations();
+    }
 
-            if (depDateAfter.getValue() != null) {
-                if (flight.getDepDatetime().toLocalDate().isBefore(depDateAfter.getValue())) {
-                    return false;
+    /**
+     * With a departure city but no arrival chosen, suggests the cheapest destinations this month.
+     */
+    private void refreshDestinations() {
+        int generation = ++destinationsGeneration;
+        String country = depCountry.getSelectionModel().getSelectedItem();
+        String city = depCity.getSelectionModel().getSelectedItem();
+        String arrival = arrCity.getSelectionModel().getSelectedItem();
+        boolean isDiscovering = country != null && city != null && !city.isBlank() && (arrival == null || arrival.isBlank());
+        if (!isDiscovering) {
+            destinationsBox.setVisible(false);
+            destinationsBox.setManaged(false);
+            return;
+        }
+
+        YearMonth month = YearMonth.from(fareCalendarCenter);
+        fareReader.execute(() -> {
+            List<RouteFare> fares = RoutePriceMatrix.getInstance().cheapestFrom(country, city, month);
+            Platform.runLater(() -> {
+                if (generation != destinationsGeneration) {
+                    return;
                 }
-            }
+                destinations.getChildren().clear();
+                fares.stream().limit(5).forEach(fare -> {
+                    Button destination = new Button(String.format("%s  %.02f$", fare.getArrCity(), fare.getPrice()));
+                    destination.getStyleClass().add("destination");
+                    destination.setTooltip(new Tooltip(fare.getArrCountry() + ", " + fare.getDate().format(FARE_DAY_FORMATTER)));
+                    destination.setOnAction(e -> {
+                        arrCountry.getSelectionModel().select(fare.getArrCountry());
+                        arrCity.getSelectionModel().select(fare.getArrCity());
+                        search(new ActionEvent());
+                    });
+                    destinations.getChildren().add(destination);
+                });
+                lblDestinations.setText("Cheapest from " + city + " in " + month.getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault()));
+                destinationsBox.setVisible(!fares.isEmpty());
+                destinationsBox.setManaged(!fares.isEmpty());
+            });
+        });
+    }
 
-            if (depDateBefore.getValue() != null) {
-                if (flight.getDepDatetime().toLocalDate().isAfter(depDateBefore.getValue())) {
-                    return false;
-                }
-            }
+    @FXML
+    void previousFares(ActionEvent event) {
+        LocalDate center = fareCalendarCenter.minusDays(2 * FARE_DAYS_AROUND + 1);
+        LocalDate earliest = LocalDate.now().plusDays(FARE_DAYS_AROUND);
+        fareCalendarCenter = center.isBefore(earliest) ? earliest : center;
+        refreshFareCalendar();
+    }
 
-            return true;
+    @FXML
+    void nextFares(ActionEvent event) {
+        fareCalendarCenter = fareCalendarCenter.plusDays(2 * FARE_DAYS_AROUND + 1);
+        refreshFareCalendar();
+    }
 
+    /**
+     * Shows the cheapest fare of each day around {@link #fareCalendarCenter} for the selected route.
+     * Months are read in the background and cached, and the neighbouring months are prefetched so
+     * flipping through the calendar does not wait on the database.
+     */
+    private void refreshFareCalendar() {
+        int generation = ++fareCalendarGeneration;
+        Set<Integer> depAirports = AirportDao.getAirportIds(depCountry.getSelectionModel().getSelectedItem(), depCity.getSelectionModel().getSelectedItem());
+        Set<Integer> arrAirports = AirportDao.getAirportIds(arrCountry.getSelectionModel().getSelectedItem(), arrCity.getSelectionModel().getSelectedItem());
+        String cabin = inputCabinBox.getSelectionModel().getSelectedIndex() > 0 ? inputCabinBox.getValue() : null;
+        LocalDate from = fareCalendarCenter.minusDays(FARE_DAYS_AROUND);
+        LocalDate to = fareCalendarCenter.plusDays(FARE_DAYS_AROUND);
+
+        fareReader.execute(() -> {
+            TreeMap<LocalDate, DayFare> fares = fareCalendarDao.read(depAirports, arrAirports, from, to);
+            Platform.runLater(() -> {
+                if (generation == fareCalendarGeneration) {
+                    showFareCalendar(fares, from, to, cabin);
+                }
+            });
+            fareCalendarDao.readMonth(depAirports, arrAirports, YearMonth.from(from).minusMonths(1));
+            fareCalendarDao.readMonth(depAirports, arrAirports, YearMonth.from(to).plusMonths(1));
         });
-
-        lblResultsCounter.setText("Results(" + results.size() + ")");
-
-        Platform.runLater(this::refreshPage);
     }
 
-    private void sortByClosestDate() {
-        sortedResults.setComparator((flight1, flight2) -> {
-            if (flight1.getDepDatetime().isAfter(flight2.getDepDatetime())) {
-                return 1;
+    private void showFareCalendar(TreeMap<LocalDate, DayFare> fares, LocalDate from, LocalDate to, String cabin) {
+        double cheapest = fares.values().stream().mapToDouble(fare -> fare.getPrice(cabin)).min().orElse(-1);
+
+        fareDays.getChildren().clear();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            DayFare fare = fares.get(date);
+            Label lblDay = new Label(date.format(FARE_DAY_FORMATTER));
+            Label lblPrice = new Label(fare == null ? "-" : String.format("%.02f$", fare.getPrice(cabin)));
+            lblPrice.getStyleClass().add("farePrice");
+
+            VBox day = new VBox(lblDay, lblPrice);
+            day.getStyleClass().add("fareDay");
+            if (fare != null) {
+                if (fare.getPrice(cabin) == cheapest) {
+                    day.getStyleClass().add("cheapestFare");
+                }
+                Tooltip.install(day, new Tooltip(String.format("First %.02f$%nBusiness %.02f$%nEconomy %.02f$",
+                        fare.getFirstPrice(), fare.getBusinessPrice(), fare.getEconomyPrice())));
             }
 
-            if (flight1.getDepDatetime().isBefore(flight2.getDepDatetime())) {
-                return -1;
-            }
+            LocalDate selectedDate = date;
+            day.setOnMouseClicked(e -> {
+                depDateAfter.setValue(selectedDate);
+                depDateBefore.setValue(selectedDate);
+                search(new ActionEvent());
+            });
+            fareDays.getChildren().add(day);
+        }
+    }
 
-            return 0;
-        });
-        Platform.runLater(this::refreshPage);
+    private void sortByClosestDate() {
+        order = FlightColumns.Order.DEPARTURE_ASCENDING;
+        search(new ActionEvent());
     }
 
     private void sortByFurthestDate() {
-        sortedResults.setComparator((flight1, flight2) -> {
-            if (flight1.getDepDatetime().isAfter(flight2.getDepDatetime())) {
-                return -1;
-            }
-
-            if (flight1.getDepDatetime().isBefore(flight2.getDepDatetime())) {
-                return 1;
-            }
-
-            return 0;
-        });
-        Platform.runLater(this::refreshPage);
+        order = FlightColumns.Order.DEPARTURE_DESCENDING;
+        search(new ActionEvent());
     }
 
     private void refreshPage() {
         int itemsPerPage = 5;
-        int nbrPages = (int) Math.ceil((double) sortedResults.size() / itemsPerPage);
+        int nbrPages = (int) Math.ceil((double) results.length / itemsPerPage);
         pagination.setPageCount(Integer.MAX_VALUE);
         pagination.setPageCount(nbrPages == 0 ? 1 : nbrPages);
     }
     private void stopSorting() {
-        sortedResults.setComparator(Comparator.comparingInt(Flight::getId).reversed());
-        Platform.runLater(this::refreshPage);
+        order = FlightColumns.Order.ID_DESCENDING;
+        search(new ActionEvent());
     }
 
     @FXML
@@ -2,6 +2,7 @@ package controller;
 
 import data.ReservationDao;
 import data.SeatDao;
+import data.SeatHoldManager;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -14,16 +15,24 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.StringConverter;
 import models.Account;
 import models.Flight;
+import models.Reservation;
 import models.Seat;
+import util.SeatRecommender;
 import view.Palette;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class SeatMapController implements Initializable {
 
@@ -95,9 +104,24 @@ public class SeatMapController implements Initializable {
     @FXML
     private GridPane seatMap;
 
+    @FXML
+    private Spinner<Integer> groupSize;
+
+    @FXML
+    private ChoiceBox<SeatRecommender.Preference> seatPreference;
+
+    @FXML
+    private HBox suggestions;
+
+    // blocks of seats together offered for a group, besides the one around the chosen seat
+    private static final int SUGGESTIONS = 3;
+
     private final ToggleGroup seatGroup = new ToggleGroup();
+    private final List<Seat> seats = new ArrayList<>();
+    private SeatRecommender seatRecommender;
     private Flight flight;
     private Seat selectedSeat;
+    private List<Seat> selectedSeats = new ArrayList<>();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -110,13 +134,110 @@ public class SeatMapController implements Initializable {
             if (newValue != null) {
                 confirmationWindow.setVisible(true);
                 selectedSeat = (Seat) seatGroup.getSelectedToggle();
-                lblSeat.setText(selectedSeat.getColumn() + selectedSeat.getRow());
+                assignGroupSeats();
             }
             else {
                 confirmationWindow.setVisible(false);
                 selectedSeat = null;
+                selectedSeats = new ArrayList<>();
             }
         }));
+
+        groupSize.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, SeatRecommender.MAX_GROUP));
+        groupSize.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (selectedSeat != null) {
+                assignGroupSeats();
+            }
+        });
+
+        seatPreference.getItems().addAll(SeatRecommender.Preference.values());
+        seatPreference.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(SeatRecommender.Preference preference) {
+                if (preference == null) {
+                    return "";
+                }
+                return switch (preference) {
+                    case NONE -> "Any seat";
+                    case WINDOW -> "Window";
+                    case AISLE -> "Aisle";
+                };
+            }
+
+            @Override
+            public SeatRecommender.Preference fromString(String string) {
+                return null;
+            }
+        });
+        seatPreference.setValue(SeatRecommender.Preference.NONE);
+        seatPreference.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (selectedSeat != null) {
+                assignGroupSeats();
+            }
+        });
+    }
+
+    /**
+     * Completes the selected seat for a group booking: with the best block of free seats together
+     * containing it, favouring the chosen window or aisle seats, when there is one, otherwise with the closest free seats (same row first, then
+     * the same side of the aisle, then the nearest rows). The best blocks elsewhere in the cabin are
+     * offered as suggestions.
+     */
+    private void assignGroupSeats() {
+        List<Seat> group = new ArrayList<>();
+        group.add(selectedSeat);
+
+        if (seatRecommender != null && groupSize.getValue() > 1) {
+            SeatRecommender.Block block = seatRecommender.blockAround(selectedSeat, groupSize.getValue(), seatPreference.getValue());
+            if (block != null) {
+                block.getSeats().stream().filter(seat -> seat != selectedSeat).forEach(group::add);
+            }
+        }
+
+        int anchorColumn = columnIndex(selectedSeat);
+        seats.stream()
+                .filter(seat -> seat != selectedSeat && !seat.isDisable())
+                .sorted(Comparator.<Seat>comparingInt(seat -> Math.abs(seat.getRow() - selectedSeat.getRow()))
+                        .thenComparingInt(seat -> (columnIndex(seat) < 3) == (anchorColumn < 3) ? 0 : 1)
+                        .thenComparingInt(seat -> Math.abs(columnIndex(seat) - anchorColumn)))
+                .filter(seat -> !group.contains(seat))
+                .limit(groupSize.getValue() - group.size())
+                .forEach(group::add);
+
+        showGroup(group);
+        showSuggestions();
+    }
+
+    private void showGroup(List<Seat> group) {
+        selectedSeats = group;
+        lblSeat.setText(seatNames(group));
+    }
+
+    private static String seatNames(List<Seat> seats) {
+        return seats.stream().map(seat -> seat.getColumn() + seat.getRow()).collect(Collectors.joining(", "));
+    }
+
+    private void showSuggestions() {
+        suggestions.getChildren().clear();
+        if (seatRecommender == null || groupSize.getValue() == 1) {
+            return;
+        }
+        for (SeatRecommender.Block block : seatRecommender.recommend(groupSize.getValue(), selectedSeat.getType(), seatPreference.getValue(), SUGGESTIONS)) {
+            if (selectedSeats.containsAll(block.getSeats())) {
+                continue;
+            }
+            Button suggestion = new Button(seatNames(block.getSeats()));
+            suggestion.setTooltip(new Tooltip("Seats together"));
+            suggestion.setOnAction(event -> {
+                seatGroup.selectToggle(block.getSeats().get(0));
+                showGroup(block.getSeats());
+            });
+            suggestions.getChildren().add(suggestion);
+        }
+    }
+
+    private static int columnIndex(Seat seat) {
+        return seat.getColumn().charAt(0) - 'A';
     }
 
     public void setData(Flight flight) {
@@ -186,13 +307,37 @@ public class SeatMapController implements Initializable {
 
     @FXML
     private void confirmSelected() {
+        if (selectedSeats.size() < groupSize.getValue()) {
+            showWarning("There are not enough free seats left on this flight for a group of " + groupSize.getValue() + ".");
+            return;
+        }
+
+        SeatHoldManager seatHoldManager = SeatHoldManager.getInstance();
+        int account = Account.getCurrentUser().getId();
+        for (Seat seat : selectedSeats) {
+            if (!seatHoldManager.hold(flight.getId(), seat.getPrimaryKey(), account)) {
+                selectedSeats.forEach(heldSeat -> seatHoldManager.release(flight.getId(), heldSeat.getPrimaryKey(), account));
+                showWarning("Seat " + seat.getColumn() + seat.getRow() + " is being booked by another passenger. Please choose another seat.");
+                seat.getStyleClass().add("UnavailableSeatIcon");
+                seat.setDisable(true);
+                seatRecommender.setOccupied(seat, true);
+                if (seat == selectedSeat) {
+                    seatGroup.selectToggle(null);
+                }
+                else {
+                    assignGroupSeats();
+                }
+                return;
+            }
+        }
+
         try {
             FXMLLoader paymentLoader = new FXMLLoader(getClass().getResource("/view/SearchPage/PaymentPage.fxml"));
             Parent page = paymentLoader.load();
             VBox.setVgrow(page, Priority.ALWAYS);
 
             PaymentPageController paymentController = paymentLoader.getController();
-            paymentController.setData(flight, selectedSeat);
+            paymentController.setData(flight, selectedSeats);
 
             ApplicationController.navBarController.pushPage(page);
 
@@ -213,6 +358,27 @@ public class SeatMapController implements Initializable {
         cardController.changeActionButtons();
     }
 
+    private void showWarning(String message) {
+        parent.getScene().lookup("#overlay-layer").setDisable(false);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setHeaderText("Warning");
+        alert.setContentText(message);
+
+        DialogPane dialogPane = alert.getDialogPane();
+
+        Palette.getDefaultPalette().usePalette(dialogPane.getScene());
+        dialogPane.getStylesheets().add(getClass().getResource("/style/Application.css").toExternalForm());
+
+        Stage alertWindow = (Stage) dialogPane.getScene().getWindow();
+        alertWindow.initStyle(StageStyle.TRANSPARENT);
+        dialogPane.getScene().setFill(Color.TRANSPARENT);
+        alertWindow.initOwner(parent.getScene().getWindow());
+
+        alert.showAndWait();
+        parent.getScene().lookup("#overlay-layer").setDisable(true);
+    }
+
     @FXML
     void cancelReservation(ActionEvent event) {
         parent.getScene().lookup("#overlay-layer").setDisable(false);
@@ -236,7 +402,7 @@ public class SeatMapController implements Initializable {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK){
             ReservationDao reservationDao = new ReservationDao();
-            reservationDao.delete(Account.getCurrentUser().getReservation(flight).getId());
+            reservationDao.cancelGroup(flight, Account.getCurrentUser());
 
             alert.close();
             parent.getScene().lookup("#overlay-layer").setDisable(true);
@@ -251,6 +417,17 @@ public class SeatMapController implements Initializable {
         SeatDao seatDao = new SeatDao();
         ArrayList<Seat> seatList = new ArrayList<>(seatDao.readAll());
 
+        ReservationDao reservationDao = new ReservationDao();
+        int account = Account.getCurrentUser().getId();
+        HashMap<Integer, Integer> occupiedSeats = reservationDao.readOccupiedSeats(flight);
+        Set<Integer> heldSeats = SeatHoldManager.getInstance().readHeldSeats(flight.getId(), account);
+        // the seats of the account's own booking can be kept or moved, so they are not disabled
+        List<Integer> reservedSeats = new ArrayList<>();
+        for (Reservation reservation : Account.getCurrentUser().getReservations(flight)) {
+            reservedSeats.add(reservation.getSeat().getPrimaryKey());
+        }
+        List<Seat> ownSeats = new ArrayList<>();
+
         // add a row contains Columns numbering
         char ref = 'A';
         for (int col = 0; col <= 6; col++) {
@@ -293,13 +470,13 @@ public class SeatMapController implements Initializable {
 
                 Seat seat = seatList.get(id++);
                 seatGroup.getToggles().add(seat);
+                seats.add(seat);
 
-                //disable the reserved seats
-                if (seat.isReservedBy(Account.getCurrentUser(), flight)) {
-                    seatGroup.selectToggle(seat);
-                    selectedSeat = seat;
+                //disable the reserved and held seats
+                if (reservedSeats.contains(seat.getPrimaryKey())) {
+                    ownSeats.add(seat);
                 }
-                else if (seat.isReserved(flight)) {
+                else if (occupiedSeats.containsKey(seat.getPrimaryKey()) || heldSeats.contains(seat.getPrimaryKey())) {
                     seat.getStyleClass().add("UnavailableSeatIcon");
                     seat.setDisable(true);
                 }
@@ -308,5 +485,16 @@ public class SeatMapController implements Initializable {
                 seatMap.add(seat, col, row);
             }
         }
+
+        seatRecommender = new SeatRecommender(seats);
+
+        if (!ownSeats.isEmpty()) {
+            // the booking's seats in the order they were reserved, its first one selected
+            ownSeats.sort(Comparator.comparingInt(seat -> reservedSeats.indexOf(seat.getPrimaryKey())));
+            groupSize.getValueFactory().setValue(Math.min(ownSeats.size(), SeatRecommender.MAX_GROUP));
+            seatGroup.selectToggle(ownSeats.get(0));
+            showGroup(ownSeats);
+            showSuggestions();
+        }
     }
 }
@@ -1,12 +1,15 @@
 package controller;
 
-import javafx.embed.swing.SwingFXUtils;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.WritableImage;
@@ -16,12 +19,14 @@ import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import models.*;
 
-import javax.imageio.ImageIO;
-import java.awt.image.RenderedImage;
+import org.controlsfx.control.Notifications;
+import util.TicketRenderer;
+
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.ResourceBundle;
 
 public class TicketPageController implements Initializable {
@@ -68,29 +73,47 @@ public class TicketPageController implements Initializable {
     @FXML
     private VBox ticket;
     private Reservation reservation;
+    private List<Reservation> reservations = List.of();
 
     @FXML
     void downloadTicket(ActionEvent event) {
         String depCity = reservation.getFlight().getDepAirport().getCity();
         String arrCity = reservation.getFlight().getArrAirport().getCity();
-        try {
-            WritableImage writableImage = ticket.snapshot(new SnapshotParameters(), null);
 
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setInitialFileName("Ticket_From_"+depCity+"_To_"+arrCity);
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("Ticket_From_"+depCity+"_To_"+arrCity);
+        if (reservations.size() > 1) {
+            // one page per seat of the group booking
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("TIFF IMAGE","*.tiff")
+            );
+        }
+        else {
             fileChooser.getExtensionFilters().addAll(
                     new FileChooser.ExtensionFilter("PNG IMAGE","*.png")
             );
+        }
 
-            File selectedFile = fileChooser.showSaveDialog(parent.getScene().getWindow());
+        File selectedFile = fileChooser.showSaveDialog(parent.getScene().getWindow());
 
-            if (selectedFile != null) {
-                File file = new File(selectedFile.getAbsolutePath());
-                RenderedImage renderedImage = SwingFXUtils.fromFXImage(writableImage, null);
-                ImageIO.write(renderedImage, "png", file);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        if (selectedFile != null && reservations.size() > 1) {
+            TicketRenderer.writeAll(reservations, new File(selectedFile.getAbsolutePath()))
+                    .whenComplete((pages, e) -> Platform.runLater(() -> notifySaved(selectedFile, e, pages + " tickets")));
+        }
+        else if (selectedFile != null) {
+            WritableImage writableImage = ticket.snapshot(new SnapshotParameters(), null);
+            TicketRenderer.writePng(writableImage, new File(selectedFile.getAbsolutePath()))
+                    .whenComplete((file, e) -> Platform.runLater(() -> notifySaved(selectedFile, e, "Ticket")));
+        }
+    }
+
+    private void notifySaved(File file, Throwable e, String saved) {
+        if (e != null) {
+            e.printStackTrace();
+            Notifications.create().title("Tickets").text("The ticket could not be saved.").showError();
+        }
+        else {
+            Notifications.create().title("Tickets").text(saved + " saved to " + file.getName() + ".").showInformation();
         }
     }
 
@@ -109,7 +132,56 @@ public class TicketPageController implements Initializable {
         cardController.changeActionButtons();
     }
 
+    public VBox getTicket() {
+        return ticket;
+    }
+
     public void setData(Reservation reservation) {
+        setData(reservation, true);
+    }
+
+    /**
+     * Shows the tickets of a booking side by side, one per seat; a single reservation is shown as
+     * by {@link #setData(Reservation)}.
+     */
+    public void setData(List<Reservation> reservations) {
+        this.reservations = reservations;
+        setData(reservations.get(0));
+        if (reservations.size() == 1) {
+            return;
+        }
+
+        HBox tickets = new HBox(20);
+        tickets.setAlignment(Pos.CENTER);
+        VBox column = (VBox) ticket.getParent();
+        int index = column.getChildren().indexOf(ticket);
+        column.getChildren().remove(ticket);
+        tickets.getChildren().add(ticket);
+        for (Reservation other : reservations.subList(1, reservations.size())) {
+            try {
+                FXMLLoader ticketLoader = new FXMLLoader(getClass().getResource("/view/SearchPage/TicketPage.fxml"));
+                ticketLoader.load();
+                TicketPageController ticketController = ticketLoader.getController();
+                ticketController.setData(other);
+                tickets.getChildren().add(ticketController.getTicket());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        ScrollPane scrollPane = new ScrollPane(tickets);
+        scrollPane.setFitToHeight(true);
+        scrollPane.setFitToWidth(true);
+        scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        scrollPane.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
+        column.getChildren().add(index, scrollPane);
+    }
+
+    /**
+     * @param followPassenger whether the name shown keeps up with edits to the signed-in passenger;
+     *                        off-screen tickets rendered for export do not need to
+     */
+    public void setData(Reservation reservation, boolean followPassenger) {
         this.reservation = reservation;
         Flight flight = reservation.getFlight();
         Seat selectedSeat = reservation.getSeat();
@@ -129,9 +201,11 @@ public class TicketPageController implements Initializable {
         lblArrCity.setText(flight.getArrAirport().getCity() + " - " + flight.getArrAirport().getCountry());
 
         lblPassengerName.setText(passenger.getFirstname() + " " + passenger.getLastname());
-        Account.getCurrentUser().getPassenger().firstnameProperty().addListener((observable, oldValue, newValue) -> {
-            lblPassengerName.setText(Account.getCurrentUser().getPassenger().getFirstname() + " " + Account.getCurrentUser().getPassenger().getLastname());
-        });
+        if (followPassenger && Account.getCurrentUser().getPassenger() != null) {
+            Account.getCurrentUser().getPassenger().firstnameProperty().addListener((observable, oldValue, newValue) -> {
+                lblPassengerName.setText(Account.getCurrentUser().getPassenger().getFirstname() + " " + Account.getCurrentUser().getPassenger().getLastname());
+            });
+        }
         lblFlightID.setText(String.valueOf(flight.getId()));
 
         lblSelectedSeat.setText(selectedSeat.getColumn()+selectedSeat.getRow());
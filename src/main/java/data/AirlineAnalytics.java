@@ -0,0 +1,382 @@
+package data;
+
+import models.Airline;
+import models.Airport;
+import models.Flight;
+import models.Reservation;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Load factor, revenue and booking activity of one airline.
+ * <p>
+ * Everything is aggregated by SQLite into one row per flight (seats sold and capacity, fare
+ * revenue per cabin, luggage and weight surcharges) and kept here; routes and totals are summed
+ * from those rows when asked for. After the first build, a reservation or flight change only marks
+ * the flight it touches as stale, and the stale flights are re-aggregated together with one query
+ * on the next read, so neither a burst of changes nor reading the figures scans the airline's
+ * history.
+ * <p>
+ * Revenue is priced at the flight's current fares, as reservations do not record what was paid.
+ */
+public class AirlineAnalytics {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // below SQLite's default limit of 999 bound parameters
+    private static final int IDS_PER_STATEMENT = 500;
+    // days of booking activity kept for the bookings-per-day series
+    public static final int BOOKING_DAYS = 30;
+
+    private static final HashMap<Integer, AirlineAnalytics> analyticsByAirline = new HashMap<>();
+
+    public static synchronized AirlineAnalytics getInstance(Airline airline) {
+        return analyticsByAirline.computeIfAbsent(airline.getId(), id -> {
+            AirlineAnalytics analytics = new AirlineAnalytics(id);
+            DataEventBus.getInstance().subscribe(analytics, Flight.class, AirlineAnalytics::onFlightChanged);
+            DataEventBus.getInstance().subscribe(analytics, Reservation.class, AirlineAnalytics::onReservationChanged);
+            return analytics;
+        });
+    }
+
+    public static class FlightStats {
+        private final int flightId;
+        private final int depAirport;
+        private final int arrAirport;
+        private final int booked;
+        private final int capacity;
+        private final double firstRevenue;
+        private final double businessRevenue;
+        private final double economyRevenue;
+        private final double surcharges;
+
+        private FlightStats(ResultSet res) throws SQLException {
+            flightId = res.getInt("id");
+            depAirport = res.getInt("dep_airport");
+            arrAirport = res.getInt("arr_airport");
+            booked = res.getInt("booked");
+            capacity = res.getInt("capacity");
+            firstRevenue = res.getDouble("first_revenue");
+            businessRevenue = res.getDouble("business_revenue");
+            economyRevenue = res.getDouble("economy_revenue");
+            surcharges = res.getDouble("surcharges");
+        }
+
+        public int getFlightId() {
+            return flightId;
+        }
+
+        public int getBooked() {
+            return booked;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public double getLoadFactor() {
+            return capacity == 0 ? 0 : (double) booked / capacity;
+        }
+
+        public double getRevenue() {
+            return firstRevenue + businessRevenue + economyRevenue + surcharges;
+        }
+    }
+
+    /**
+     * Sums of several flights: a route, or the whole airline.
+     */
+    public static class Totals {
+        private String route;
+        private int flights;
+        private int booked;
+        private int capacity;
+        private double firstRevenue;
+        private double businessRevenue;
+        private double economyRevenue;
+        private double surcharges;
+
+        private void add(FlightStats stats) {
+            flights++;
+            booked += stats.booked;
+            capacity += stats.capacity;
+            firstRevenue += stats.firstRevenue;
+            businessRevenue += stats.businessRevenue;
+            economyRevenue += stats.economyRevenue;
+            surcharges += stats.surcharges;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public int getFlights() {
+            return flights;
+        }
+
+        public int getBooked() {
+            return booked;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public double getLoadFactor() {
+            return capacity == 0 ? 0 : (double) booked / capacity;
+        }
+
+        public double getFirstRevenue() {
+            return firstRevenue;
+        }
+
+        public double getBusinessRevenue() {
+            return businessRevenue;
+        }
+
+        public double getEconomyRevenue() {
+            return economyRevenue;
+        }
+
+        public double getSurcharges() {
+            return surcharges;
+        }
+
+        public double getRevenue() {
+            return firstRevenue + businessRevenue + economyRevenue + surcharges;
+        }
+    }
+
+    private static final String FLIGHT_STATS = "SELECT flights.id, flights.dep_airport, flights.arr_airport, "
+            + "(SELECT COALESCE(SUM(capacity), 0) FROM seat_inventory WHERE seat_inventory.id_flight = flights.id) AS capacity, "
+            + "COUNT(reservations.id) AS booked, "
+            + "COALESCE(SUM(CASE lower(seats.type) WHEN 'first' THEN flights.first_price END), 0) AS first_revenue, "
+            + "COALESCE(SUM(CASE lower(seats.type) WHEN 'business' THEN flights.business_price END), 0) AS business_revenue, "
+            + "COALESCE(SUM(CASE lower(seats.type) WHEN 'economy' THEN flights.economy_price END), 0) AS economy_revenue, "
+            + "COALESCE(SUM(reservations.nbr_luggages * flights.luggage_price + reservations.weight * flights.weight_price), 0) AS surcharges "
+            + "FROM flights "
+            + "LEFT JOIN reservations ON reservations.id_flight = flights.id "
+            + "LEFT JOIN seats ON seats.id = reservations.id_seat "
+            + "WHERE flights.id_airline = ?";
+
+    private final int airline;
+    private final HashMap<Integer, FlightStats> flights = new HashMap<>();
+    // epoch day -> reservations made that day, over the last BOOKING_DAYS days
+    private final TreeMap<Long, Integer> bookingsPerDay = new TreeMap<>();
+    // flights changed since they were aggregated, re-aggregated together on the next read
+    private final Set<Integer> staleFlights = new HashSet<>();
+    private boolean isBuilt = false;
+    private boolean bookingsStale = true;
+
+    private AirlineAnalytics(int airline) {
+        this.airline = airline;
+    }
+
+    private void ensureBuilt() {
+        if (!isBuilt) {
+            isBuilt = true;
+            staleFlights.clear();
+            readFlightStats(null);
+        }
+        if (!staleFlights.isEmpty()) {
+            readFlightStats(new ArrayList<>(staleFlights));
+            staleFlights.clear();
+        }
+        if (bookingsStale || bookingsPerDay.isEmpty() || bookingsPerDay.firstKey() < firstBookingDay()) {
+            bookingsStale = false;
+            readBookingsPerDay();
+        }
+    }
+
+    /**
+     * Aggregates the given flights with one query per {@link #IDS_PER_STATEMENT} of them, or every
+     * flight of the airline when {@code flightIds} is null.
+     */
+    private void readFlightStats(List<Integer> flightIds) {
+        Connection conn = DataSource.getConnection();
+        int size = flightIds == null ? 1 : flightIds.size();
+        try {
+            for (int from = 0; from < size; from += IDS_PER_STATEMENT) {
+                List<Integer> chunk = flightIds == null ? null : flightIds.subList(from, Math.min(size, from + IDS_PER_STATEMENT));
+                PreparedStatement query = conn.prepareStatement(FLIGHT_STATS
+                        + (chunk == null ? "" : " AND flights.id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")")
+                        + " GROUP BY flights.id;");
+                query.setInt(1, airline);
+                if (chunk != null) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        query.setInt(i + 2, chunk.get(i));
+                        flights.remove(chunk.get(i));
+                    }
+                }
+                ResultSet res = query.executeQuery();
+                while (res.next()) {
+                    FlightStats stats = new FlightStats(res);
+                    flights.put(stats.flightId, stats);
+                }
+                query.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static long firstBookingDay() {
+        return LocalDate.now().toEpochDay() - BOOKING_DAYS + 1;
+    }
+
+    private void readBookingsPerDay() {
+        bookingsPerDay.clear();
+        long firstDay = firstBookingDay();
+        for (long day = firstDay; day <= LocalDate.now().toEpochDay(); day++) {
+            bookingsPerDay.put(day, 0);
+        }
+
+        Connection conn = DataSource.getConnection();
+        try {
+            PreparedStatement query = conn.prepareStatement("SELECT reservations.booked_at / " + MINUTES_PER_DAY + " AS day, COUNT(*) AS bookings "
+                    + "FROM reservations JOIN flights ON flights.id = reservations.id_flight "
+                    + "WHERE reservations.booked_at >= ? AND flights.id_airline = ? GROUP BY day;");
+            query.setLong(1, firstDay * MINUTES_PER_DAY);
+            query.setInt(2, airline);
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                bookingsPerDay.put(res.getLong("day"), res.getInt("bookings"));
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isOwnFlight(Flight flight) {
+        return flight != null && flight.getAirline() != null && flight.getAirline().getId() == airline;
+    }
+
+    private synchronized void onFlightChanged(DataEvent<Flight> event) {
+        if (!isBuilt) {
+            return;
+        }
+        if (event.isBulk() && event.getChange() == DataEvent.Change.INSERTED) {
+            event.getObjects().stream().filter(this::isOwnFlight).forEach(flight -> staleFlights.add(flight.getId()));
+            return;
+        }
+        if (event.isBulk()) {
+            for (int id : event.getIds()) {
+                if (!flights.containsKey(id)) {
+                    continue;
+                }
+                if (event.getChange() == DataEvent.Change.DELETED) {
+                    flights.remove(id);
+                    staleFlights.remove(id);
+                    bookingsStale = true;
+                }
+                else {
+                    staleFlights.add(id);
+                }
+            }
+            return;
+        }
+        switch (event.getChange()) {
+            case INSERTED -> {
+                if (isOwnFlight(event.getObject())) {
+                    staleFlights.add(event.getId());
+                }
+            }
+            // fares feed revenue; the update may be partial, so the flight is re-aggregated if it is ours
+            case UPDATED -> {
+                if (flights.containsKey(event.getId())) {
+                    staleFlights.add(event.getId());
+                }
+            }
+            case DELETED -> {
+                staleFlights.remove(event.getId());
+                if (flights.remove(event.getId()) != null) {
+                    bookingsStale = true;
+                }
+            }
+        }
+    }
+
+    private synchronized void onReservationChanged(DataEvent<Reservation> event) {
+        if (!isBuilt) {
+            return;
+        }
+        Reservation reservation = event.getObject();
+        if (reservation == null || reservation.getFlight() == null) {
+            // cannot tell which flight it was; rebuild on next read
+            isBuilt = false;
+            flights.clear();
+            bookingsStale = true;
+            return;
+        }
+        if (!flights.containsKey(reservation.getFlight().getId())) {
+            return;
+        }
+
+        // reservations are only re-booked (seat, luggage) within their flight, so an update touches that flight alone
+        staleFlights.add(reservation.getFlight().getId());
+        if (event.getChange() == DataEvent.Change.INSERTED) {
+            bookingsPerDay.merge(LocalDate.now().toEpochDay(), 1, Integer::sum);
+        }
+        else if (event.getChange() == DataEvent.Change.DELETED) {
+            // the day it was booked on is not known here
+            bookingsStale = true;
+        }
+    }
+
+    /**
+     * Figures of one flight, or null when it is not one of the airline's.
+     */
+    public synchronized FlightStats getFlight(int flightId) {
+        ensureBuilt();
+        return flights.get(flightId);
+    }
+
+    /**
+     * Sums over every flight of the airline.
+     */
+    public synchronized Totals getTotals() {
+        ensureBuilt();
+        Totals totals = new Totals();
+        flights.values().forEach(totals::add);
+        return totals;
+    }
+
+    /**
+     * Sums per route (departure and arrival airport), highest revenue first.
+     */
+    public synchronized List<Totals> getRoutes() {
+        ensureBuilt();
+        HashMap<Long, Totals> routes = new HashMap<>();
+        for (FlightStats stats : flights.values()) {
+            long route = ((long) stats.depAirport << 32) | (stats.arrAirport & 0xFFFFFFFFL);
+            routes.computeIfAbsent(route, key -> {
+                Totals totals = new Totals();
+                totals.route = airportCode(stats.depAirport) + " → " + airportCode(stats.arrAirport);
+                return totals;
+            }).add(stats);
+        }
+        List<Totals> list = new ArrayList<>(routes.values());
+        list.sort(Comparator.comparingDouble(Totals::getRevenue).reversed());
+        return list;
+    }
+
+    private static String airportCode(int id) {
+        Airport airport = new AirportDao().read(id);
+        if (airport == null) {
+            return "?";
+        }
+        return airport.getIATA() != null ? airport.getIATA() : airport.getICAO();
+    }
+
+    /**
+     * Reservations made on each of the last {@link #BOOKING_DAYS} days, oldest first, including
+     * days without any.
+     */
+    public synchronized SortedMap<LocalDate, Integer> getBookingsPerDay() {
+        ensureBuilt();
+        TreeMap<LocalDate, Integer> days = new TreeMap<>();
+        bookingsPerDay.tailMap(firstBookingDay()).forEach((day, bookings) -> days.put(LocalDate.ofEpochDay(day), bookings));
+        return days;
+    }
+}
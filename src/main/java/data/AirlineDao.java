@@ -18,7 +18,9 @@ public class AirlineDao implements Dao<Airline> {
     public static final HashMap<Integer, Airline> airlinesMap = new HashMap<>();
 
     public void updateAirlinesMap(int id) {
-        read(id);
+        if (!airlinesMap.containsKey(id)) {
+            read(id);
+        }
     }
 
     private byte[] imageToStream(Image logo) throws IOException {
@@ -6,14 +6,35 @@ import models.Airport;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class AirportDao implements Dao<Airport> {
     private static ObservableList<String> cityList;
     private static ObservableList<String> countryList;
 
+    // every airport by id once warmed from the reference snapshot or a full read; lookups then skip SQLite
+    static final ConcurrentHashMap<Integer, Airport> airportsMap = new ConcurrentHashMap<>();
+    private static volatile boolean isWarm = false;
+
+    static void warm(Collection<Airport> airports) {
+        airports.forEach(airport -> airportsMap.put(airport.getId(), airport));
+        isWarm = true;
+        cityList = null;
+        countryList = null;
+    }
+
     public static ObservableList<String> getCityList() {
+        if (cityList == null && isWarm) {
+            cityList = FXCollections.observableList(airportsMap.values().stream()
+                    .map(Airport::getCity).distinct().sorted(Comparator.nullsLast(Comparator.naturalOrder()))
+                    .collect(Collectors.toCollection(LinkedList::new)));
+        }
         if (cityList == null) {
             cityList = FXCollections.observableList(new LinkedList<>());
             Connection conn = DataSource.getConnection();
@@ -33,6 +54,11 @@ public class AirportDao implements Dao<Airport> {
     }
 
     public static ObservableList<String> getCountryList() {
+        if (countryList == null && isWarm) {
+            countryList = FXCollections.observableList(airportsMap.values().stream()
+                    .map(Airport::getCountry).distinct().sorted(Comparator.nullsLast(Comparator.naturalOrder()))
+                    .collect(Collectors.toCollection(LinkedList::new)));
+        }
         if (countryList == null) {
             countryList = FXCollections.observableList(new LinkedList<String>());
             Connection conn = DataSource.getConnection();
@@ -57,6 +83,13 @@ public class AirportDao implements Dao<Airport> {
             return FXCollections.observableList(new LinkedList<>());
         }
 
+        if (isWarm) {
+            return FXCollections.observableList(airportsMap.values().stream()
+                    .filter(airport -> country.equals(airport.getCountry()))
+                    .map(Airport::getCity).distinct().sorted(Comparator.nullsLast(Comparator.naturalOrder()))
+                    .collect(Collectors.toCollection(LinkedList::new)));
+        }
+
         LinkedList<String> cityList = new LinkedList<>();
 
         Connection conn = DataSource.getConnection();
@@ -77,6 +110,14 @@ public class AirportDao implements Dao<Airport> {
     }
 
     public static ObservableList<Airport> getAirportList(String city) {
+        if (isWarm) {
+            // columns may be NULL in the database; the query below simply does not match them
+            return FXCollections.observableList(airportsMap.values().stream()
+                    .filter(airport -> city != null && city.equals(airport.getCity()))
+                    .sorted(Comparator.comparing(Airport::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .collect(Collectors.toCollection(LinkedList::new)));
+        }
+
         Connection conn = DataSource.getConnection();
         LinkedList<Airport> list = new LinkedList<>();
 
@@ -102,6 +143,25 @@ public class AirportDao implements Dao<Airport> {
         return FXCollections.observableList(list);
     }
 
+    /**
+     * Ids of the airports in a country and/or city, or null when neither is given (any airport).
+     */
+    public static Set<Integer> getAirportIds(String country, String city) {
+        boolean anyCountry = country == null || country.isBlank();
+        boolean anyCity = city == null || city.isBlank();
+        if (anyCountry && anyCity) {
+            return null;
+        }
+        if (!isWarm) {
+            new AirportDao().readAll();
+        }
+        return airportsMap.values().stream()
+                .filter(airport -> anyCountry || country.equals(airport.getCountry()))
+                .filter(airport -> anyCity || city.equals(airport.getCity()))
+                .map(Airport::getId)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public int create(Airport airport) {
         Connection conn = DataSource.getConnection();
@@ -118,6 +178,9 @@ public class AirportDao implements Dao<Airport> {
             ResultSet id = query.getGeneratedKeys();
             if (id.next()) {
                 airport.setId(id.getInt(1));
+                airportsMap.put(airport.getId(), airport);
+                cityList = null;
+                countryList = null;
             }
             query.close();
             return id.getInt(1);
@@ -129,8 +192,12 @@ public class AirportDao implements Dao<Airport> {
 
     @Override
     public Airport read(int id) {
+        Airport airport = airportsMap.get(id);
+        if (airport != null) {
+            return airport;
+        }
+
         Connection conn = DataSource.getConnection();
-        Airport airport = null;
         String statement = "SELECT * FROM airports WHERE id = ?;";
         try {
             PreparedStatement query = conn.prepareStatement(statement);
@@ -146,6 +213,7 @@ public class AirportDao implements Dao<Airport> {
                 airport .setCountry(res.getString("country"));
                 airport .setIATA(res.getString("IATA"));
                 airport .setICAO(res.getString("ICAO"));
+                airportsMap.put(id, airport);
 
             }
 
@@ -178,6 +246,7 @@ public class AirportDao implements Dao<Airport> {
 
                 list.add(airport);
             }
+            warm(list);
             return list;
         } catch (SQLException e) {
 
@@ -190,6 +259,7 @@ public class AirportDao implements Dao<Airport> {
     public void update(int id, Airport airport) {
         Connection conn = DataSource.getConnection();
         Airport original =  this.read(id);
+        airportsMap.remove(id);
 
         String statement = "UPDATE airports SET name = ?, city = ?, country = ?, IATA = ?, ICAO = ? WHERE id = ? ;";
 
@@ -234,6 +304,9 @@ public class AirportDao implements Dao<Airport> {
 
             query.executeUpdate();
             query.close();
+            read(id);
+            cityList = null;
+            countryList = null;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -248,6 +321,9 @@ public class AirportDao implements Dao<Airport> {
             query.setInt(1, id);
             query.executeUpdate();
             query.close();
+            airportsMap.remove(id);
+            cityList = null;
+            countryList = null;
         } catch (SQLException e) {
             e.printStackTrace();
         }
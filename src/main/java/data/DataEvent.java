@@ -0,0 +1,98 @@
+package data;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A row of one of the data tables was inserted, updated or deleted through its DAO.
+ * {@code object} is the entity as written; it may be null for deletions, and for partial updates
+ * whose listeners read the row back if they need its new values.
+ * <p>
+ * A set-based write over many rows is one event listing their {@link #getIds() ids}, without an
+ * object. Such an update carries the change itself as {@link #getUpdate()}, which listeners holding
+ * a copy of the rows apply in memory instead of reading every row back; such an insert carries the
+ * inserted entities as {@link #getObjects()}.
+ */
+public class DataEvent<Type> {
+    public enum Change { INSERTED, UPDATED, DELETED }
+
+    private final Class<Type> entity;
+    private final Change change;
+    private final int id;
+    private final Type object;
+    private final List<Integer> ids;
+    private final List<Type> objects;
+    private final Consumer<Type> update;
+    private final boolean isBulk;
+
+    public DataEvent(Class<Type> entity, Change change, int id, Type object) {
+        this.entity = entity;
+        this.change = change;
+        this.id = id;
+        this.object = object;
+        this.ids = List.of(id);
+        this.objects = object == null ? List.of() : List.of(object);
+        this.update = null;
+        this.isBulk = false;
+    }
+
+    public DataEvent(Class<Type> entity, Change change, List<Integer> ids, Consumer<Type> update) {
+        this(entity, change, ids, List.of(), update);
+    }
+
+    public DataEvent(Class<Type> entity, Change change, List<Integer> ids, List<Type> objects, Consumer<Type> update) {
+        this.entity = entity;
+        this.change = change;
+        this.id = 0;
+        this.object = null;
+        this.ids = ids;
+        this.objects = objects;
+        this.update = update;
+        this.isBulk = true;
+    }
+
+    public Class<Type> getEntity() {
+        return entity;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Type getObject() {
+        return object;
+    }
+
+    /**
+     * Whether this event covers the rows of a set-based write rather than a single row.
+     */
+    public boolean isBulk() {
+        return isBulk;
+    }
+
+    /**
+     * Every row the event covers; the single {@link #getId() id} unless it is a bulk event.
+     */
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * The entities as written: the single {@link #getObject() object} if there is one, or for a
+     * bulk insert every inserted entity, in the order of {@link #getIds()}. Empty otherwise.
+     */
+    public List<Type> getObjects() {
+        return objects;
+    }
+
+    /**
+     * For a bulk update, applies the change to an entity in memory; null otherwise.
+     */
+    public Consumer<Type> getUpdate() {
+        return update;
+    }
+}
@@ -0,0 +1,108 @@
+package data;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus on which the DAOs publish {@link DataEvent}s after a successful write, so caches
+ * and on-screen lists can apply the change instead of reloading from the database.
+ * <p>
+ * Events are delivered synchronously on the writing thread; listeners that touch the scene graph
+ * must hand over to the FX thread themselves. Subscribers are held weakly through their owner, so
+ * a controller whose page is discarded stops receiving events without having to unsubscribe. The
+ * listener receives the owner as its first argument and must not capture it.
+ */
+public class DataEventBus {
+    private static DataEventBus dataEventBus;
+
+    public static synchronized DataEventBus getInstance() {
+        if (dataEventBus == null) {
+            dataEventBus = new DataEventBus();
+        }
+        return dataEventBus;
+    }
+
+    private static final class Subscriber {
+        final WeakReference<Object> owner;
+        final BiConsumer<Object, DataEvent<?>> listener;
+
+        Subscriber(Object owner, BiConsumer<Object, DataEvent<?>> listener) {
+            this.owner = new WeakReference<>(owner);
+            this.listener = listener;
+        }
+    }
+
+    private final ConcurrentHashMap<Class<?>, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a listener for the writes of one entity. It is called on the thread that made the
+     * write, which is the FX thread only when the write was made from it.
+     */
+    @SuppressWarnings("unchecked")
+    public <Owner, Type> void subscribe(Owner owner, Class<Type> entity, BiConsumer<Owner, DataEvent<Type>> listener) {
+        subscribers.computeIfAbsent(entity, key -> new CopyOnWriteArrayList<>())
+                .add(new Subscriber(owner, (BiConsumer<Object, DataEvent<?>>) (BiConsumer<?, ?>) listener));
+    }
+
+    public void unsubscribe(Object owner) {
+        subscribers.values().forEach(list -> list.removeIf(subscriber -> subscriber.owner.get() == owner));
+    }
+
+    /**
+     * Delivers the event to every subscriber before returning, synchronously on the calling
+     * thread: the writer waits for its listeners, so they should only record the change and hand
+     * any slow work to another thread.
+     */
+    public <Type> void publish(Class<Type> entity, DataEvent.Change change, int id, Type object) {
+        List<Subscriber> list = subscribers.get(entity);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        deliver(list, new DataEvent<>(entity, change, id, object));
+    }
+
+    /**
+     * Announces a set-based write over many rows as a single event.
+     *
+     * @param update for an update, applies the change to an entity in memory
+     */
+    public <Type> void publishAll(Class<Type> entity, DataEvent.Change change, List<Integer> ids, Consumer<Type> update) {
+        List<Subscriber> list = subscribers.get(entity);
+        if (list == null || list.isEmpty() || ids.isEmpty()) {
+            return;
+        }
+        deliver(list, new DataEvent<>(entity, change, List.copyOf(ids), update));
+    }
+
+    /**
+     * Announces a set-based insert of many rows as a single event carrying the inserted entities.
+     *
+     * @param objects the inserted entities, in the order of {@code ids}
+     */
+    public <Type> void publishInserts(Class<Type> entity, List<Integer> ids, List<Type> objects) {
+        List<Subscriber> list = subscribers.get(entity);
+        if (list == null || list.isEmpty() || ids.isEmpty()) {
+            return;
+        }
+        deliver(list, new DataEvent<>(entity, DataEvent.Change.INSERTED, List.copyOf(ids), List.copyOf(objects), null));
+    }
+
+    private void deliver(List<Subscriber> list, DataEvent<?> event) {
+        for (Subscriber subscriber : list) {
+            Object owner = subscriber.owner.get();
+            if (owner == null) {
+                list.remove(subscriber);
+                continue;
+            }
+            try {
+                subscriber.listener.accept(owner, event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
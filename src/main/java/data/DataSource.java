@@ -2,18 +2,35 @@ package data;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.*;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class DataSource {
+    /**
+     * Statements run as one transaction by {@link #inTransaction}.
+     */
+    public interface Transaction<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
     private static Connection connection;
+    // held by a transaction from start to end, and by every other statement while it executes, so
+    // statements from other threads wait for the transaction instead of joining it
+    private static final ReentrantLock lock = new ReentrantLock();
+    // skynet.db points the application at another database file, such as one generated for benchmarks
+    private static final Path dataBasePath = System.getProperty("skynet.db") != null
+            ? Path.of(System.getProperty("skynet.db"))
+            : Path.of(System.getProperty("user.home"), ".Skynet", "applicationDataBase.db");
 
     private DataSource() {
+        Connection conn = null;
         try {
-
-            Path dataBasePath = Path.of(System.getProperty("user.home"), ".Skynet", "applicationDataBase.db");
             String resourceName= "/dataBase/applicationDataBase.db";
 
             if (!Files.exists(dataBasePath)) {
@@ -24,14 +41,98 @@ public class DataSource {
                 }
             }
 
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dataBasePath.toAbsolutePath());
+            conn = DriverManager.getConnection("jdbc:sqlite:" + dataBasePath.toAbsolutePath());
+            Migrations.apply(conn);
+            connection = guard(conn);
 
         } catch (SQLException | IOException e) {
-            System.out.println(e.getMessage());
+            // a database the migrations could not bring up to date must not be used
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            throw new IllegalStateException("Could not open the database " + dataBasePath + ": " + e.getMessage(), e);
         }
     }
 
-    public static Connection getConnection() {
+    private static Connection guard(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            Object result = invoke(conn, method, args);
+            if (result instanceof PreparedStatement statement) {
+                return guard(statement, PreparedStatement.class);
+            }
+            if (result instanceof Statement statement) {
+                return guard(statement, Statement.class);
+            }
+            return result;
+        });
+    }
+
+    private static Object guard(Statement statement, Class<? extends Statement> type) {
+        return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            lock.lock();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Runs {@code transaction} on the application's connection and commits it, or rolls it back if
+     * it throws. Statements other threads execute in the meantime wait until it is over. Called
+     * from within another transaction, it joins that one.
+     */
+    public static <T> T inTransaction(Transaction<T> transaction) throws SQLException {
+        Connection conn = getConnection();
+        lock.lock();
+        try {
+            boolean autoCommit = conn.getAutoCommit();
+            if (!autoCommit) {
+                return transaction.run(conn);
+            }
+            conn.setAutoCommit(false);
+            try {
+                T result = transaction.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static Path getDataBasePath() {
+        return dataBasePath;
+    }
+
+    /**
+     * The application's connection, opened and migrated on first use.
+     *
+     * @throws IllegalStateException when the database cannot be opened or migrated
+     */
+    // synchronized: startup opens the database from a background thread while other threads may ask for it
+    public static synchronized Connection getConnection() {
         if (connection == null) {
            new DataSource();
         }
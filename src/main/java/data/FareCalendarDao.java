@@ -0,0 +1,131 @@
+package data;
+
+import models.DayFare;
+import models.Flight;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Cheapest fare per departure day for a route, read one month at a time with a single
+ * {@code GROUP BY} over the indexed {@code dep_epoch} column. The most recently read months are
+ * cached per route until any flight is written.
+ */
+public class FareCalendarDao {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static final int CAPACITY = 64;
+
+    private static final LinkedHashMap<String, Map<LocalDate, DayFare>> monthsCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<LocalDate, DayFare>> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    // bumped by every flight write, so a month read that overlapped one does not cache its result
+    private static long version = 0;
+
+    static {
+        DataEventBus.getInstance().subscribe(monthsCache, Flight.class, (cache, event) -> {
+            synchronized (cache) {
+                version++;
+                cache.clear();
+            }
+        });
+    }
+
+    /**
+     * Cheapest fares of each day in the window that has at least one flight.
+     *
+     * @param depAirports departure airport ids, or null for any
+     * @param arrAirports arrival airport ids, or null for any
+     */
+    public TreeMap<LocalDate, DayFare> read(Set<Integer> depAirports, Set<Integer> arrAirports, LocalDate from, LocalDate to) {
+        TreeMap<LocalDate, DayFare> fares = new TreeMap<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            readMonth(depAirports, arrAirports, month).forEach((date, fare) -> {
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    fares.put(date, fare);
+                }
+            });
+        }
+        return fares;
+    }
+
+    public Map<LocalDate, DayFare> readMonth(Set<Integer> depAirports, Set<Integer> arrAirports, YearMonth month) {
+        String key = routeKey(depAirports) + "/" + routeKey(arrAirports) + "/" + month;
+        Map<LocalDate, DayFare> fares;
+        long startVersion;
+        synchronized (monthsCache) {
+            fares = monthsCache.get(key);
+            if (fares != null) {
+                return fares;
+            }
+            startVersion = version;
+        }
+
+        fares = new HashMap<>();
+        StringBuilder statement = new StringBuilder("SELECT dep_epoch / ? AS day, MIN(first_price) AS first_price, MIN(business_price) AS business_price, MIN(economy_price) AS economy_price " +
+                "FROM flights WHERE dep_epoch >= ? AND dep_epoch < ?");
+        appendIn(statement, "dep_airport", depAirports);
+        appendIn(statement, "arr_airport", arrAirports);
+        statement.append(" GROUP BY day;");
+
+        Connection conn = DataSource.getConnection();
+        try {
+            PreparedStatement query = conn.prepareStatement(statement.toString());
+            int index = 1;
+            query.setInt(index++, MINUTES_PER_DAY);
+            query.setLong(index++, month.atDay(1).toEpochDay() * MINUTES_PER_DAY);
+            query.setLong(index++, month.plusMonths(1).atDay(1).toEpochDay() * MINUTES_PER_DAY);
+            for (Set<Integer> airports : Arrays.asList(depAirports, arrAirports)) {
+                if (airports != null) {
+                    for (int airport : airports) {
+                        query.setInt(index++, airport);
+                    }
+                }
+            }
+
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                DayFare fare = new DayFare();
+                fare.setDate(LocalDate.ofEpochDay(res.getLong("day")));
+                fare.setFirstPrice(res.getDouble("first_price"));
+                fare.setBusinessPrice(res.getDouble("business_price"));
+                fare.setEconomyPrice(res.getDouble("economy_price"));
+                fares.put(fare.getDate(), fare);
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return fares;
+        }
+
+        synchronized (monthsCache) {
+            if (version == startVersion) {
+                monthsCache.put(key, fares);
+            }
+        }
+        return fares;
+    }
+
+    private static String routeKey(Set<Integer> airports) {
+        if (airports == null) {
+            return "*";
+        }
+        return new TreeSet<>(airports).toString();
+    }
+
+    private static void appendIn(StringBuilder statement, String column, Set<Integer> airports) {
+        if (airports == null) {
+            return;
+        }
+        statement.append(" AND ").append(column).append(" IN (");
+        for (int i = 0; i < airports.size(); i++) {
+            statement.append(i == 0 ? "?" : ",?");
+        }
+        statement.append(")");
+    }
+}
@@ -31,6 +31,7 @@ public class FavoriteDao implements Dao<Favorite> {
                 favoritesMap.put(favorite.getFlight().getId(), favorite);
             }
             query.close();
+            DataEventBus.getInstance().publish(Favorite.class, DataEvent.Change.INSERTED, favorite.getId(), favorite);
             return id.getInt(1);
         } catch (SQLException e) {
             e.printStackTrace();
@@ -171,6 +172,7 @@ public class FavoriteDao implements Dao<Favorite> {
 
             query.executeUpdate();
             query.close();
+            DataEventBus.getInstance().publish(Favorite.class, DataEvent.Change.UPDATED, id, favorite);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -186,6 +188,7 @@ public class FavoriteDao implements Dao<Favorite> {
             query.executeUpdate();
             query.close();
             FavoriteDao.favoritesMap.remove(favorite.getFlight().getId());
+            DataEventBus.getInstance().publish(Favorite.class, DataEvent.Change.DELETED, id, favorite);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,249 @@
+package data;
+
+import models.Account;
+import models.Favorite;
+import models.Flight;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches an account's favorited flights for price drops and schedule changes.
+ * <p>
+ * The watcher keeps the last seen times and fares of each favorite. Every poll first reads the global
+ * {@code flight_revision} counter maintained by the triggers of {@link Migrations}; only when it has
+ * moved does it run one query for the account's favorites stamped with a newer revision, so the cost
+ * of a poll follows the number of changed flights, not the number of favorites.
+ */
+public class FavoriteWatcher {
+    public static final long POLL_INTERVAL_SECONDS = 60;
+
+    public enum Kind { PRICE_DROP, SCHEDULE_CHANGE }
+
+    public static class Change {
+        private final int flight;
+        private final Kind kind;
+        private final String depCity;
+        private final String arrCity;
+        private final String cabin;
+        private final double oldPrice;
+        private final double newPrice;
+        private final long oldDepEpochMinute;
+        private final long newDepEpochMinute;
+        private final long oldArrEpochMinute;
+        private final long newArrEpochMinute;
+
+        Change(int flight, Kind kind, String depCity, String arrCity, String cabin, double oldPrice, double newPrice, Snapshot previous, Snapshot current) {
+            this.flight = flight;
+            this.kind = kind;
+            this.depCity = depCity;
+            this.arrCity = arrCity;
+            this.cabin = cabin;
+            this.oldPrice = oldPrice;
+            this.newPrice = newPrice;
+            this.oldDepEpochMinute = previous.depEpochMinute;
+            this.newDepEpochMinute = current.depEpochMinute;
+            this.oldArrEpochMinute = previous.arrEpochMinute;
+            this.newArrEpochMinute = current.arrEpochMinute;
+        }
+
+        public int getFlight() {
+            return flight;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getDepCity() {
+            return depCity;
+        }
+
+        public String getArrCity() {
+            return arrCity;
+        }
+
+        public String getCabin() {
+            return cabin;
+        }
+
+        public double getOldPrice() {
+            return oldPrice;
+        }
+
+        public double getNewPrice() {
+            return newPrice;
+        }
+
+        public long getOldDepEpochMinute() {
+            return oldDepEpochMinute;
+        }
+
+        public long getNewDepEpochMinute() {
+            return newDepEpochMinute;
+        }
+
+        public long getOldArrEpochMinute() {
+            return oldArrEpochMinute;
+        }
+
+        public long getNewArrEpochMinute() {
+            return newArrEpochMinute;
+        }
+
+        public boolean isDepartureChanged() {
+            return oldDepEpochMinute != newDepEpochMinute;
+        }
+    }
+
+    private static final class Snapshot {
+        long depEpochMinute;
+        long arrEpochMinute;
+        double[] prices;
+    }
+
+    private static final String[] CABINS = { "First", "Business", "Economy" };
+
+    private final int account;
+    private final Consumer<List<Change>> listener;
+    private final HashMap<Integer, Snapshot> snapshots = new HashMap<>();
+    private long revision = 0;
+    private ScheduledExecutorService poller;
+
+    /**
+     * @param listener receives each non-empty batch of changes, on the watcher's thread
+     */
+    public FavoriteWatcher(Account account, Consumer<List<Change>> listener) {
+        this.account = account.getId();
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        revision = readRevision();
+        readChanges(-1).clear();
+
+        DataEventBus.getInstance().subscribe(this, Favorite.class, FavoriteWatcher::onFavoriteChanged);
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "favorite-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_SECONDS, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+        DataEventBus.getInstance().unsubscribe(this);
+        snapshots.clear();
+    }
+
+    private synchronized void onFavoriteChanged(DataEvent<Favorite> event) {
+        Favorite favorite = event.getObject();
+        if (favorite == null || favorite.getAccount() == null || favorite.getAccount().getId() != account) {
+            return;
+        }
+        Flight flight = favorite.getFlight();
+        if (event.getChange() == DataEvent.Change.DELETED) {
+            snapshots.remove(flight.getId());
+            return;
+        }
+        Snapshot snapshot = new Snapshot();
+        snapshot.depEpochMinute = flight.getDepEpochMinute();
+        snapshot.arrEpochMinute = flight.getArrEpochMinute();
+        snapshot.prices = new double[]{ flight.getFirstPrice(), flight.getBusinessPrice(), flight.getEconomyPrice() };
+        snapshots.put(flight.getId(), snapshot);
+    }
+
+    private synchronized void poll() {
+        try {
+            long latest = readRevision();
+            if (latest == revision) {
+                return;
+            }
+            List<Change> changes = readChanges(revision);
+            revision = latest;
+            if (!changes.isEmpty()) {
+                listener.accept(changes);
+            }
+        } catch (RuntimeException e) {
+            // keep the schedule alive
+            e.printStackTrace();
+        }
+    }
+
+    private long readRevision() {
+        Connection conn = DataSource.getConnection();
+        long latest = revision;
+        try {
+            PreparedStatement query = conn.prepareStatement("SELECT revision FROM flight_revision WHERE id = 1;");
+            ResultSet res = query.executeQuery();
+            if (res.next()) {
+                latest = res.getLong("revision");
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return latest;
+    }
+
+    /**
+     * Reads the favorites changed after {@code sinceRevision}, diffs them against their snapshots
+     * and stores the new values.
+     */
+    private List<Change> readChanges(long sinceRevision) {
+        Connection conn = DataSource.getConnection();
+        List<Change> changes = new ArrayList<>();
+        String statement = "SELECT flights.id, flights.dep_epoch, flights.arr_epoch, flights.first_price, flights.business_price, flights.economy_price, " +
+                "dep.city AS dep_city, arr.city AS arr_city FROM favorites " +
+                "JOIN flights ON flights.id = favorites.id_flight " +
+                "JOIN airports AS dep ON dep.id = flights.dep_airport " +
+                "JOIN airports AS arr ON arr.id = flights.arr_airport " +
+                "WHERE favorites.id_account = ? AND flights.revision > ?;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            query.setInt(1, account);
+            query.setLong(2, sinceRevision);
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                int flight = res.getInt("id");
+                Snapshot snapshot = new Snapshot();
+                snapshot.depEpochMinute = res.getLong("dep_epoch");
+                snapshot.arrEpochMinute = res.getLong("arr_epoch");
+                snapshot.prices = new double[]{ res.getDouble("first_price"), res.getDouble("business_price"), res.getDouble("economy_price") };
+
+                Snapshot previous = snapshots.put(flight, snapshot);
+                if (previous == null) {
+                    continue;
+                }
+
+                String depCity = res.getString("dep_city");
+                String arrCity = res.getString("arr_city");
+                if (previous.depEpochMinute != snapshot.depEpochMinute || previous.arrEpochMinute != snapshot.arrEpochMinute) {
+                    changes.add(new Change(flight, Kind.SCHEDULE_CHANGE, depCity, arrCity, null, 0, 0, previous, snapshot));
+                }
+                for (int i = 0; i < CABINS.length; i++) {
+                    if (snapshot.prices[i] < previous.prices[i]) {
+                        changes.add(new Change(flight, Kind.PRICE_DROP, depCity, arrCity, CABINS[i], previous.prices[i], snapshot.prices[i], previous, snapshot));
+                    }
+                }
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return changes;
+    }
+}
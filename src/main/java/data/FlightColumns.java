@@ -0,0 +1,238 @@
+package data;
+
+import models.Flight;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * The whole timetable held as parallel primitive arrays, one row per flight, for searching large
+ * catalogs without materializing a {@link Flight} per row. Searches return flight ids; only the
+ * flights actually displayed are then read through {@link FlightDao}.
+ * <p>
+ * Loaded once on first use and kept current from the {@link DataEventBus}. Deleted flights leave a
+ * row with id 0 behind, which searches skip.
+ */
+public class FlightColumns {
+    public enum Order { ID_DESCENDING, DEPARTURE_ASCENDING, DEPARTURE_DESCENDING }
+
+    private static FlightColumns flightColumns;
+
+    public static synchronized FlightColumns getInstance() {
+        if (flightColumns == null) {
+            flightColumns = new FlightColumns();
+            flightColumns.load();
+            DataEventBus.getInstance().subscribe(flightColumns, Flight.class, FlightColumns::onFlightChanged);
+        }
+        return flightColumns;
+    }
+
+    private int size = 0;
+    private int[] ids = new int[0];
+    private long[] depEpochMinutes = new long[0];
+    private long[] arrEpochMinutes = new long[0];
+    private int[] depAirports = new int[0];
+    private int[] arrAirports = new int[0];
+    private int[] airlines = new int[0];
+    private double[] firstPrices = new double[0];
+    private double[] businessPrices = new double[0];
+    private double[] economyPrices = new double[0];
+    private final HashMap<Integer, Integer> rowsById = new HashMap<>();
+
+    private FlightColumns() {
+    }
+
+    private synchronized void load() {
+        Connection conn = DataSource.getConnection();
+        try {
+            PreparedStatement query = conn.prepareStatement("SELECT id, dep_epoch, arr_epoch, dep_datetime, arr_datetime, first_price, business_price, economy_price, id_airline, dep_airport, arr_airport FROM flights;");
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                int row = appendRow(res.getInt("id"));
+                depEpochMinutes[row] = FlightDao.readEpochMinute(res, "dep_epoch", "dep_datetime");
+                arrEpochMinutes[row] = FlightDao.readEpochMinute(res, "arr_epoch", "arr_datetime");
+                firstPrices[row] = res.getDouble("first_price");
+                businessPrices[row] = res.getDouble("business_price");
+                economyPrices[row] = res.getDouble("economy_price");
+                airlines[row] = res.getInt("id_airline");
+                depAirports[row] = res.getInt("dep_airport");
+                arrAirports[row] = res.getInt("arr_airport");
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int appendRow(int id) {
+        if (size == ids.length) {
+            int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            depEpochMinutes = Arrays.copyOf(depEpochMinutes, capacity);
+            arrEpochMinutes = Arrays.copyOf(arrEpochMinutes, capacity);
+            depAirports = Arrays.copyOf(depAirports, capacity);
+            arrAirports = Arrays.copyOf(arrAirports, capacity);
+            airlines = Arrays.copyOf(airlines, capacity);
+            firstPrices = Arrays.copyOf(firstPrices, capacity);
+            businessPrices = Arrays.copyOf(businessPrices, capacity);
+            economyPrices = Arrays.copyOf(economyPrices, capacity);
+        }
+        ids[size] = id;
+        rowsById.put(id, size);
+        return size++;
+    }
+
+    private synchronized void setRow(Flight flight) {
+        Integer row = rowsById.get(flight.getId());
+        if (row == null) {
+            row = appendRow(flight.getId());
+        }
+        depEpochMinutes[row] = flight.getDepEpochMinute();
+        arrEpochMinutes[row] = flight.getArrEpochMinute();
+        firstPrices[row] = flight.getFirstPrice();
+        businessPrices[row] = flight.getBusinessPrice();
+        economyPrices[row] = flight.getEconomyPrice();
+        airlines[row] = flight.getAirline().getId();
+        depAirports[row] = flight.getDepAirport().getId();
+        arrAirports[row] = flight.getArrAirport().getId();
+    }
+
+    private synchronized void removeRow(int id) {
+        Integer row = rowsById.remove(id);
+        if (row != null) {
+            ids[row] = 0;
+        }
+    }
+
+    /**
+     * Applies a set-based update to the stored rows: each is copied to a flight, changed in memory
+     * and written back, so none is read from the database.
+     */
+    private synchronized void updateRows(List<Integer> flightIds, Consumer<Flight> update) {
+        Flight flight = new Flight();
+        for (int id : flightIds) {
+            Integer row = rowsById.get(id);
+            if (row == null) {
+                continue;
+            }
+            flight.setDepEpochMinute(depEpochMinutes[row]);
+            flight.setArrEpochMinute(arrEpochMinutes[row]);
+            flight.setFirstPrice(firstPrices[row]);
+            flight.setBusinessPrice(businessPrices[row]);
+            flight.setEconomyPrice(economyPrices[row]);
+            update.accept(flight);
+            depEpochMinutes[row] = flight.getDepEpochMinute();
+            arrEpochMinutes[row] = flight.getArrEpochMinute();
+            firstPrices[row] = flight.getFirstPrice();
+            businessPrices[row] = flight.getBusinessPrice();
+            economyPrices[row] = flight.getEconomyPrice();
+        }
+    }
+
+    private void onFlightChanged(DataEvent<Flight> event) {
+        if (event.isBulk() && event.getChange() == DataEvent.Change.UPDATED) {
+            updateRows(event.getIds(), event.getUpdate());
+            return;
+        }
+        if (event.isBulk() && event.getChange() == DataEvent.Change.DELETED) {
+            event.getIds().forEach(this::removeRow);
+            return;
+        }
+        if (event.isBulk() && event.getChange() == DataEvent.Change.INSERTED) {
+            event.getObjects().forEach(this::setRow);
+            return;
+        }
+        switch (event.getChange()) {
+            case INSERTED -> setRow(event.getObject());
+            case UPDATED -> {
+                // an update may carry only the changed fields, so the stored row is read back
+                Flight flight = FlightDao.getInstance().read(event.getId());
+                if (flight != null) {
+                    setRow(flight);
+                }
+            }
+            case DELETED -> removeRow(event.getId());
+        }
+    }
+
+    public synchronized int size() {
+        return rowsById.size();
+    }
+
+    private boolean rowMatches(int row, Set<Integer> depAirports, Set<Integer> arrAirports, long fromEpochMinute, long toEpochMinute) {
+        if (fromEpochMinute != Flight.NO_DATETIME && depEpochMinutes[row] < fromEpochMinute) {
+            return false;
+        }
+        if (toEpochMinute != Flight.NO_DATETIME && depEpochMinutes[row] >= toEpochMinute) {
+            return false;
+        }
+        if (depAirports != null && !depAirports.contains(this.depAirports[row])) {
+            return false;
+        }
+        return arrAirports == null || arrAirports.contains(this.arrAirports[row]);
+    }
+
+    /**
+     * Whether a flight, as currently stored, meets the route and departure window of
+     * {@link #search}; false for an unknown flight.
+     */
+    public synchronized boolean matches(int flightId, Set<Integer> depAirports, Set<Integer> arrAirports, long fromEpochMinute, long toEpochMinute) {
+        Integer row = rowsById.get(flightId);
+        return row != null && rowMatches(row, depAirports, arrAirports, fromEpochMinute, toEpochMinute);
+    }
+
+    /**
+     * Departure of a flight, or {@link Flight#NO_DATETIME} for an unknown flight.
+     */
+    public synchronized long getDepEpochMinute(int flightId) {
+        Integer row = rowsById.get(flightId);
+        return row == null ? Flight.NO_DATETIME : depEpochMinutes[row];
+    }
+
+    /**
+     * Ids of the flights matching every given criterion, in the requested order.
+     *
+     * @param depAirports departure airport ids, or null for any
+     * @param arrAirports arrival airport ids, or null for any
+     * @param fromEpochMinute earliest departure (inclusive), or {@link Flight#NO_DATETIME}
+     * @param toEpochMinute latest departure (exclusive), or {@link Flight#NO_DATETIME}
+     * @param flightFilter further test on the flight id, or null
+     */
+    public synchronized int[] search(Set<Integer> depAirports, Set<Integer> arrAirports, long fromEpochMinute, long toEpochMinute, IntPredicate flightFilter, Order order) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (ids[row] == 0 || !rowMatches(row, depAirports, arrAirports, fromEpochMinute, toEpochMinute)) {
+                continue;
+            }
+            if (flightFilter != null && !flightFilter.test(ids[row])) {
+                continue;
+            }
+            rows[count++] = row;
+        }
+
+        // sort on a packed (key, row) long so no boxing or comparator is involved
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            long key = switch (order) {
+                case ID_DESCENDING -> -ids[row];
+                case DEPARTURE_ASCENDING -> depEpochMinutes[row];
+                case DEPARTURE_DESCENDING -> -depEpochMinutes[row];
+            };
+            keys[i] = (key << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = ids[(int) keys[i]];
+        }
+        return result;
+    }
+}
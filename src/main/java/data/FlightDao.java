@@ -3,15 +3,26 @@ package data;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import models.Airline;
+import models.Favorite;
 import models.Flight;
+import models.Reservation;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class FlightDao implements Dao<Flight> {
+    // the text columns are kept alongside dep_epoch/arr_epoch for databases and tools that still read them
+    static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // flight ids per statement in bulk operations, below SQLite's bound parameter limit
+    private static final int IDS_PER_STATEMENT = 500;
+
     private static FlightDao flightDao;
     public static FlightDao getInstance() {
         if (flightDao == null) {
@@ -28,11 +39,11 @@ public class FlightDao implements Dao<Flight> {
     @Override
     public int create(Flight flight) {
         Connection conn = DataSource.getConnection();
-        String statement = "INSERT INTO flights (dep_datetime, arr_datetime, first_price, business_price, economy_price, luggage_price, weight_price, id_airline, dep_airport, arr_airport) VALUES (?,?,?,?,?,?,?,?,?,?);";
+        String statement = "INSERT INTO flights (dep_datetime, arr_datetime, first_price, business_price, economy_price, luggage_price, weight_price, id_airline, dep_airport, arr_airport, dep_epoch, arr_epoch) VALUES (?,?,?,?,?,?,?,?,?,?,?,?);";
         try {
             PreparedStatement query = conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS);
-            query.setString(1, flight.getDepDatetime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-            query.setString(2, flight.getArrDatetime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+            query.setString(1, flight.getDepDatetime().format(DATETIME_FORMATTER));
+            query.setString(2, flight.getArrDatetime().format(DATETIME_FORMATTER));
             query.setDouble(3, flight.getFirstPrice());
             query.setDouble(4, flight.getBusinessPrice());
             query.setDouble(5, flight.getEconomyPrice());
@@ -41,12 +52,15 @@ public class FlightDao implements Dao<Flight> {
             query.setInt(8, flight.getAirline().getId());
             query.setInt(9, flight.getDepAirport().getId());
             query.setInt(10, flight.getArrAirport().getId());
+            query.setLong(11, flight.getDepEpochMinute());
+            query.setLong(12, flight.getArrEpochMinute());
             query.executeUpdate();
             ResultSet id = query.getGeneratedKeys();
             if (id.next()) {
                 flight.setId(id.getInt(1));
             }
             query.close();
+            DataEventBus.getInstance().publish(Flight.class, DataEvent.Change.INSERTED, flight.getId(), flight);
             return id.getInt(1);
         } catch (SQLException e) {
             e.printStackTrace();
@@ -54,6 +68,34 @@ public class FlightDao implements Dao<Flight> {
         return 0;
     }
 
+    /**
+     * Reads a date-time column as epoch minutes, from the integer column when it is filled and from
+     * the text column otherwise (rows written before the epoch columns existed).
+     */
+    static long readEpochMinute(ResultSet res, String epochColumn, String textColumn) throws SQLException {
+        long epochMinute = res.getLong(epochColumn);
+        if (!res.wasNull()) {
+            return epochMinute;
+        }
+        return Flight.toEpochMinute(LocalDateTime.parse(res.getString(textColumn), DATETIME_FORMATTER));
+    }
+
+    private Flight readRow(ResultSet res) throws SQLException {
+        Flight flight = new Flight();
+        flight.setId(res.getInt("id"));
+        flight.setDepEpochMinute(readEpochMinute(res, "dep_epoch", "dep_datetime"));
+        flight.setArrEpochMinute(readEpochMinute(res, "arr_epoch", "arr_datetime"));
+        flight.setFirstPrice(res.getDouble("first_price"));
+        flight.setBusinessPrice(res.getDouble("business_price"));
+        flight.setEconomyPrice(res.getDouble("economy_price"));
+        flight.setLuggagePrice(res.getDouble("luggage_price"));
+        flight.setWeightPrice(res.getDouble("weight_price"));
+        flight.setAirline(res.getInt("id_airline"));
+        flight.setDepAirport(airportDao.read(res.getInt("dep_airport")));
+        flight.setArrAirport(airportDao.read(res.getInt("arr_airport")));
+        return flight;
+    }
+
     @Override
     public Flight read(int id) {
         Connection conn = DataSource.getConnection();
@@ -66,18 +108,7 @@ public class FlightDao implements Dao<Flight> {
             ResultSet res = query.executeQuery();
 
             if (res.next()) {
-                flight = new Flight();
-                flight.setId(res.getInt("id"));
-                flight.setDepDatetime(LocalDateTime.parse(res.getString("dep_datetime"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-                flight.setArrDatetime(LocalDateTime.parse(res.getString("arr_datetime"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-                flight.setFirstPrice(res.getDouble("first_price"));
-                flight.setBusinessPrice(res.getDouble("business_price"));
-                flight.setEconomyPrice(res.getDouble("economy_price"));
-                flight.setLuggagePrice(res.getDouble("luggage_price"));
-                flight.setWeightPrice(res.getDouble("weight_price"));
-                flight.setAirline(res.getInt("id_airline"));
-                flight.setDepAirport(airportDao.read(res.getInt("dep_airport")));
-		        flight.setArrAirport(airportDao.read(res.getInt("arr_airport")));
+                flight = readRow(res);
             }
 
             query.close();
@@ -94,22 +125,11 @@ public class FlightDao implements Dao<Flight> {
         LinkedList<Flight> list = new LinkedList<>();
 
         try {
-            PreparedStatement query = conn.prepareStatement("SELECT * FROM flights WHERE id_airline = ? ORDER BY dep_datetime;");
+            PreparedStatement query = conn.prepareStatement("SELECT * FROM flights WHERE id_airline = ? ORDER BY dep_epoch;");
             query.setInt(1, airline.getId());
             ResultSet res = query.executeQuery();
             while (res.next()) {
-                Flight flight = new Flight();
-                flight.setId(res.getInt("id"));
-                flight.setDepDatetime(LocalDateTime.parse(res.getString("dep_datetime"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-                flight.setArrDatetime(LocalDateTime.parse(res.getString("arr_datetime"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-                flight.setFirstPrice(res.getDouble("first_price"));
-                flight.setBusinessPrice(res.getDouble("business_price"));
-                flight.setEconomyPrice(res.getDouble("economy_price"));
-                flight.setLuggagePrice(res.getDouble("luggage_price"));
-                flight.setWeightPrice(res.getDouble("weight_price"));
-                flight.setAirline(res.getInt("id_airline"));
-                flight.setDepAirport(airportDao.read(res.getInt("dep_airport")));
-                flight.setArrAirport(airportDao.read(res.getInt("arr_airport")));
+                Flight flight = readRow(res);
 
                 list.addFirst(flight);
             }
@@ -130,18 +150,7 @@ public class FlightDao implements Dao<Flight> {
             PreparedStatement query = conn.prepareStatement("SELECT * FROM flights;");
             ResultSet res = query.executeQuery();
             while (res.next()) {
-                Flight flight = new Flight();
-                flight.setId(res.getInt("id"));
-                flight.setDepDatetime(LocalDateTime.parse(res.getString("dep_datetime"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-                flight.setArrDatetime(LocalDateTime.parse(res.getString("arr_datetime"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-                flight.setFirstPrice(res.getDouble("first_price"));
-                flight.setBusinessPrice(res.getDouble("business_price"));
-                flight.setEconomyPrice(res.getDouble("economy_price"));
-                flight.setLuggagePrice(res.getDouble("luggage_price"));
-                flight.setWeightPrice(res.getDouble("weight_price"));
-                flight.setAirline(res.getInt("id_airline"));
-                flight.setDepAirport(airportDao.read(res.getInt("dep_airport")));
-                flight.setArrAirport(airportDao.read(res.getInt("arr_airport")));
+                Flight flight = readRow(res);
               
 
                 list.addFirst(flight);
@@ -154,104 +163,268 @@ public class FlightDao implements Dao<Flight> {
         }
     }
 
+    /**
+     * Writes the fields set on {@code flight} (non-null date-times and airports, prices other than
+     * -1) and leaves the other columns as they are stored, without reading the row first.
+     */
     @Override
     public void update(int id, Flight flight) {
         Connection conn = DataSource.getConnection();
-        Flight original =  this.read(id);
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+
+        if (flight.getDepDatetime() != null) {
+            columns.add("dep_datetime");
+            values.add(flight.getDepDatetime().format(DATETIME_FORMATTER));
+            columns.add("dep_epoch");
+            values.add(flight.getDepEpochMinute());
+        }
+        if (flight.getArrDatetime() != null) {
+            columns.add("arr_datetime");
+            values.add(flight.getArrDatetime().format(DATETIME_FORMATTER));
+            columns.add("arr_epoch");
+            values.add(flight.getArrEpochMinute());
+        }
+        if (flight.getFirstPrice() != -1) {
+            columns.add("first_price");
+            values.add(flight.getFirstPrice());
+        }
+        if (flight.getBusinessPrice() != -1) {
+            columns.add("business_price");
+            values.add(flight.getBusinessPrice());
+        }
+        if (flight.getEconomyPrice() != -1) {
+            columns.add("economy_price");
+            values.add(flight.getEconomyPrice());
+        }
+        if (flight.getLuggagePrice() != -1) {
+            columns.add("luggage_price");
+            values.add(flight.getLuggagePrice());
+        }
+        if (flight.getWeightPrice() != -1) {
+            columns.add("weight_price");
+            values.add(flight.getWeightPrice());
+        }
+        if (flight.getAirline() != null) {
+            columns.add("id_airline");
+            values.add(flight.getAirline().getId());
+        }
+        if (flight.getDepAirport() != null) {
+            columns.add("dep_airport");
+            values.add(flight.getDepAirport().getId());
+        }
+        if (flight.getArrAirport() != null) {
+            columns.add("arr_airport");
+            values.add(flight.getArrAirport().getId());
+        }
+        if (columns.isEmpty()) {
+            return;
+        }
 
-        String statement = "UPDATE flights SET dep_datetime= ?, arr_datetime= ?, first_price= ?, business_price= ?, economy_price= ?, luggage_price= ?, weight_price= ?, id_airline= ?, dep_airport= ?, arr_airport= ? WHERE id = ?;";
+        String statement = "UPDATE flights SET " + String.join("= ?, ", columns) + "= ? WHERE id = ?;";
         try {
             PreparedStatement query = conn.prepareStatement(statement);
-            query.setInt(11, id);
-
-            if (flight.getDepDatetime() != null) {
-                query.setString(1, flight.getDepDatetime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-            }
-            else {
-                query.setString(1, original.getDepDatetime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-            }
-
-            if (flight.getArrDatetime() != null) {
-                query.setString(2, flight.getArrDatetime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-            }
-            else {
-                query.setString(2, original.getArrDatetime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+            for (int i = 0; i < values.size(); i++) {
+                query.setObject(i + 1, values.get(i));
             }
+            query.setInt(values.size() + 1, id);
 
-            if (flight.getFirstPrice() != -1) {
-                query.setDouble(3, flight.getFirstPrice());
-            }
-            else {
-                query.setDouble(3, original.getFirstPrice());
+            int updated = query.executeUpdate();
+            query.close();
+            if (updated > 0) {
+                DataEventBus.getInstance().publish(Flight.class, DataEvent.Change.UPDATED, id, flight);
             }
 
-            if (flight.getBusinessPrice() != -1) {
-                query.setDouble(4, flight.getBusinessPrice());
-            }
-            else {
-                query.setDouble(4, original.getBusinessPrice());
-            }
-            
-            if (flight.getEconomyPrice() != -1) {
-                query.setDouble(5, flight.getEconomyPrice());
-            }
-            else {
-                query.setDouble(5, original.getEconomyPrice());
-            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
-            if (flight.getLuggagePrice() != -1) {
-                query.setDouble(6, flight.getLuggagePrice());
-            }
-            else {
-                query.setDouble(6, original.getLuggagePrice());
-            }
+    /**
+     * Moves the departure and arrival of several flights by the same number of minutes.
+     *
+     * @return the ids of the flights moved
+     */
+    public List<Integer> shiftSchedule(List<Integer> ids, long minutes) {
+        return updateAll(ids, "dep_epoch = dep_epoch + ?, arr_epoch = arr_epoch + ?, "
+                + "dep_datetime = strftime('%Y-%m-%d %H:%M', (dep_epoch + ?) * 60, 'unixepoch'), "
+                + "arr_datetime = strftime('%Y-%m-%d %H:%M', (arr_epoch + ?) * 60, 'unixepoch')", shift(minutes), minutes, minutes, minutes, minutes);
+    }
 
-            if (flight.getWeightPrice() != -1) {
-                query.setDouble(7, flight.getWeightPrice());
-            }
-            else {
-                query.setDouble(7, original.getWeightPrice());
-            }
+    /**
+     * The change {@link #shiftSchedule} makes, applied to a flight in memory.
+     */
+    public static Consumer<Flight> shift(long minutes) {
+        return flight -> {
+            flight.setDepEpochMinute(flight.getDepEpochMinute() + minutes);
+            flight.setArrEpochMinute(flight.getArrEpochMinute() + minutes);
+        };
+    }
 
-            if (flight.getAirline() != null) {
-                query.setInt(8, flight.getAirline().getId());
-            }
-            else {
-                query.setInt(8, original.getAirline().getId());
-            }
+    /**
+     * Raises (or, with a negative percentage, lowers) the cabin fares of several flights.
+     *
+     * @return the ids of the flights repriced
+     */
+    public List<Integer> adjustPrices(List<Integer> ids, double percent) {
+        double factor = 1 + percent / 100;
+        return updateAll(ids, "first_price = ROUND(first_price * ?, 2), business_price = ROUND(business_price * ?, 2), "
+                + "economy_price = ROUND(economy_price * ?, 2)", reprice(factor), factor, factor, factor);
+    }
 
-            if (flight.getDepAirport() != null) {
-                query.setInt(9, flight.getDepAirport().getId());
-            }
-            else {
-                query.setInt(9, original.getDepAirport().getId());
-            }
+    /**
+     * The change {@link #adjustPrices} makes, applied to a flight in memory, rounded to the cent as
+     * SQLite does.
+     */
+    public static Consumer<Flight> reprice(double factor) {
+        return flight -> {
+            flight.setFirstPrice(Math.round(flight.getFirstPrice() * factor * 100) / 100.0);
+            flight.setBusinessPrice(Math.round(flight.getBusinessPrice() * factor * 100) / 100.0);
+            flight.setEconomyPrice(Math.round(flight.getEconomyPrice() * factor * 100) / 100.0);
+        };
+    }
 
-            if (flight.getArrAirport() != null) {
-                query.setInt(10, flight.getArrAirport().getId());
-            }
-            else {
-                query.setInt(10, original.getArrAirport().getId());
-            }
+    private List<Integer> updateAll(List<Integer> ids, String assignments, Consumer<Flight> update, Object... values) {
+        List<Integer> updated = runForAll(ids, "UPDATE flights SET " + assignments + " WHERE id IN ", values);
+        // one event for the whole set, carrying the change so listeners need not read the rows back
+        DataEventBus.getInstance().publishAll(Flight.class, DataEvent.Change.UPDATED, updated, update);
+        return updated;
+    }
 
-            query.executeUpdate();
-            query.close();
+    /**
+     * Deletes several flights at once, with their reservations and favorites.
+     *
+     * @return the number of flights deleted
+     */
+    public int deleteAll(List<Integer> ids) {
+        List<Integer> deleted = deleteWithDependents(ids);
+        DataEventBus.getInstance().publishAll(Flight.class, DataEvent.Change.DELETED, deleted, null);
+        return deleted.size();
+    }
 
+    /**
+     * Deletes the flights and the reservations and favorites made on them, in chunks below SQLite's
+     * bound parameter limit, all inside one transaction. The reservations and favorites are
+     * announced once it is committed; their flights being gone, they carry a flight holding only
+     * its id, and reservations no seat.
+     *
+     * @return the ids of the flights deleted
+     */
+    private List<Integer> deleteWithDependents(List<Integer> ids) {
+        List<Integer> deleted = new ArrayList<>();
+        // id, id_flight, id_account, nbr_luggages of each deleted reservation, and its weight
+        List<int[]> reservations = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        // id, id_flight, id_account of each deleted favorite
+        List<int[]> favorites = new ArrayList<>();
+        try {
+            DataSource.inTransaction(conn -> {
+                for (int from = 0; from < ids.size(); from += IDS_PER_STATEMENT) {
+                    List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IDS_PER_STATEMENT));
+                    String in = "(" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                    ResultSet res = deleteChunk(conn, "DELETE FROM reservations WHERE id_flight IN " + in + " RETURNING id, id_flight, id_account, nbr_luggages, weight;", chunk);
+                    while (res.next()) {
+                        reservations.add(new int[]{ res.getInt("id"), res.getInt("id_flight"), res.getInt("id_account"), res.getInt("nbr_luggages") });
+                        weights.add(res.getDouble("weight"));
+                    }
+                    res.getStatement().close();
+
+                    res = deleteChunk(conn, "DELETE FROM favorites WHERE id_flight IN " + in + " RETURNING id, id_flight, id_account;", chunk);
+                    while (res.next()) {
+                        favorites.add(new int[]{ res.getInt("id"), res.getInt("id_flight"), res.getInt("id_account") });
+                    }
+                    res.getStatement().close();
+
+                    res = deleteChunk(conn, "DELETE FROM flights WHERE id IN " + in + " RETURNING id;", chunk);
+                    while (res.next()) {
+                        deleted.add(res.getInt("id"));
+                    }
+                    res.getStatement().close();
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            return new ArrayList<>();
+        }
+
+        for (int i = 0; i < reservations.size(); i++) {
+            int[] row = reservations.get(i);
+            Reservation reservation = new Reservation();
+            reservation.setId(row[0]);
+            reservation.setFlight(deletedFlight(row[1]));
+            reservation.setAccount(row[2]);
+            reservation.setNbrLuggages(row[3]);
+            reservation.setWeight(weights.get(i));
+            DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.DELETED, reservation.getId(), reservation);
         }
+        for (int[] row : favorites) {
+            Favorite favorite = new Favorite();
+            favorite.setId(row[0]);
+            favorite.setFlight(deletedFlight(row[1]));
+            favorite.setAccount(row[2]);
+            FavoriteDao.favoritesMap.remove(row[1]);
+            DataEventBus.getInstance().publish(Favorite.class, DataEvent.Change.DELETED, favorite.getId(), favorite);
+        }
+        return deleted;
     }
 
-    @Override
-    public void delete(int id) {
-        Connection conn = DataSource.getConnection();
+    private static ResultSet deleteChunk(Connection conn, String statement, List<Integer> ids) throws SQLException {
+        PreparedStatement query = conn.prepareStatement(statement);
+        for (int i = 0; i < ids.size(); i++) {
+            query.setInt(i + 1, ids.get(i));
+        }
+        return query.executeQuery();
+    }
+
+    private static Flight deletedFlight(int id) {
+        Flight flight = new Flight();
+        flight.setId(id);
+        return flight;
+    }
+
+    /**
+     * Runs one set-based statement over the given flights, in chunks below SQLite's bound parameter
+     * limit, all inside one transaction.
+     *
+     * @return the ids of the flights the statement changed
+     */
+    private List<Integer> runForAll(List<Integer> ids, String statement, Object[] values) {
+        List<Integer> changed = new ArrayList<>();
         try {
-            PreparedStatement query = conn.prepareStatement("DELETE FROM flights WHERE id = ? ;");
-            query.setInt(1, id);
-            query.executeUpdate();
-            query.close();
+            DataSource.inTransaction(conn -> {
+                for (int from = 0; from < ids.size(); from += IDS_PER_STATEMENT) {
+                    List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IDS_PER_STATEMENT));
+                    PreparedStatement query = conn.prepareStatement(statement + "(" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ") RETURNING id;");
+                    for (int i = 0; i < values.length; i++) {
+                        query.setObject(i + 1, values[i]);
+                    }
+                    for (int i = 0; i < chunk.size(); i++) {
+                        query.setInt(values.length + i + 1, chunk.get(i));
+                    }
+                    ResultSet res = query.executeQuery();
+                    while (res.next()) {
+                        changed.add(res.getInt("id"));
+                    }
+                    query.close();
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            return new ArrayList<>();
+        }
+        return changed;
+    }
+
+    /**
+     * Deletes the flight with its reservations and favorites.
+     */
+    @Override
+    public void delete(int id) {
+        if (!deleteWithDependents(List.of(id)).isEmpty()) {
+            DataEventBus.getInstance().publish(Flight.class, DataEvent.Change.DELETED, id, null);
         }
     }
 }
@@ -0,0 +1,169 @@
+package data;
+
+import models.Flight;
+import models.Reservation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Results of recent flight searches, so repeating a search (going back from a flight to its
+ * results, flipping a filter back) is answered without reading seat availability from SQLite or
+ * scanning the timetable again.
+ * <p>
+ * Entries are keyed by their normalized criteria and the least recently used is dropped past
+ * {@link #CAPACITY}. A flight or reservation write drops only the entries it can change: those
+ * listing the flight, and those whose route and dates the flight now meets. Entries also expire
+ * after {@link #TTL}, for writes made outside this application.
+ */
+public class FlightSearchCache {
+    public static final int CAPACITY = 64;
+    public static final Duration TTL = Duration.ofMinutes(5);
+
+    private static FlightSearchCache flightSearchCache;
+
+    public static synchronized FlightSearchCache getInstance() {
+        if (flightSearchCache == null) {
+            // subscribed before the cache, so its rows are current when the cache is invalidated
+            FlightColumns.getInstance();
+            flightSearchCache = new FlightSearchCache();
+            DataEventBus.getInstance().subscribe(flightSearchCache, Flight.class, (cache, event) -> cache.invalidate(event.getIds()));
+            DataEventBus.getInstance().subscribe(flightSearchCache, Reservation.class, FlightSearchCache::onReservationChanged);
+        }
+        return flightSearchCache;
+    }
+
+    private static class Entry {
+        private final Set<Integer> depAirports;
+        private final Set<Integer> arrAirports;
+        private long fromEpochMinute;
+        private final long toEpochMinute;
+        private int[] ids;
+        // the same ids sorted, to test whether a written flight is listed
+        private int[] sortedIds;
+        private final long createdAt = System.nanoTime();
+
+        private Entry(Set<Integer> depAirports, Set<Integer> arrAirports, long fromEpochMinute, long toEpochMinute, int[] ids) {
+            this.depAirports = depAirports;
+            this.arrAirports = arrAirports;
+            this.toEpochMinute = toEpochMinute;
+            setIds(fromEpochMinute, ids);
+        }
+
+        private void setIds(long fromEpochMinute, int[] ids) {
+            this.fromEpochMinute = fromEpochMinute;
+            this.ids = ids;
+            sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdAt > TTL.toNanos();
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    // bumped by every invalidation, so a search that overlapped a write does not cache its result
+    private long version = 0;
+
+    private FlightSearchCache() {
+    }
+
+    /**
+     * Ids of the flights meeting the criteria, in the requested order, as
+     * {@link FlightColumns#search} with a seat availability filter would return them.
+     *
+     * @param depAirports departure airport ids, or null for any
+     * @param arrAirports arrival airport ids, or null for any
+     * @param fromEpochMinute earliest departure; anything up to now means flights not yet left
+     * @param toEpochMinute latest departure (exclusive), or {@link Flight#NO_DATETIME}
+     * @param cabin seat type the seats must be in, or null for any
+     * @param seats seats that must still be free
+     * @param isCancelled checked while searching; once true the search stops and returns null
+     */
+    public int[] search(Set<Integer> depAirports, Set<Integer> arrAirports, long fromEpochMinute, long toEpochMinute,
+                        String cabin, int seats, FlightColumns.Order order, BooleanSupplier isCancelled) {
+        // flights leaving in the current minute have already left
+        long now = Flight.toEpochMinute(LocalDateTime.now()) + 1;
+        boolean isFromNow = fromEpochMinute <= now;
+        long from = Math.max(fromEpochMinute, now);
+        String key = airportsKey(depAirports) + "/" + airportsKey(arrAirports) + "/" + (isFromNow ? "now" : from) + "/"
+                + (toEpochMinute == Flight.NO_DATETIME ? "*" : toEpochMinute) + "/"
+                + (cabin == null ? "*" : cabin.toLowerCase()) + "/" + seats + "/" + order;
+
+        long startVersion;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry != null) {
+                if (entry.fromEpochMinute < from) {
+                    // a search from now, cached a few minutes ago: drop the flights that left since
+                    FlightColumns columns = FlightColumns.getInstance();
+                    entry.setIds(from, Arrays.stream(entry.ids).filter(id -> columns.getDepEpochMinute(id) >= from).toArray());
+                }
+                return entry.ids;
+            }
+            startVersion = version;
+        }
+
+        HashMap<Integer, Integer> availability = new SeatInventoryDao().readAvailability(cabin);
+        if (isCancelled.getAsBoolean()) {
+            return null;
+        }
+        int[] ids = FlightColumns.getInstance().search(depAirports, arrAirports, from, toEpochMinute,
+                flight -> !isCancelled.getAsBoolean() && availability.getOrDefault(flight, 0) >= seats, order);
+        if (isCancelled.getAsBoolean()) {
+            return null;
+        }
+
+        synchronized (this) {
+            if (version == startVersion) {
+                entries.put(key, new Entry(depAirports, arrAirports, from, toEpochMinute, ids));
+            }
+        }
+        return ids;
+    }
+
+    private static String airportsKey(Set<Integer> airports) {
+        if (airports == null) {
+            return "*";
+        }
+        return new TreeSet<>(airports).toString();
+    }
+
+    /**
+     * Drops the entries a write to the flight can change: those listing it, and those it now
+     * belongs to.
+     */
+    private synchronized void invalidate(List<Integer> flightIds) {
+        version++;
+        FlightColumns columns = FlightColumns.getInstance();
+        entries.values().removeIf(entry -> flightIds.stream().anyMatch(flightId -> Arrays.binarySearch(entry.sortedIds, flightId) >= 0
+                || columns.matches(flightId, entry.depAirports, entry.arrAirports, entry.fromEpochMinute, entry.toEpochMinute)));
+    }
+
+    private void onReservationChanged(DataEvent<Reservation> event) {
+        Reservation reservation = event.getObject();
+        if (reservation == null || reservation.getFlight() == null) {
+            clear();
+            return;
+        }
+        // a booking changes the seats left on its flight only
+        invalidate(List.of(reservation.getFlight().getId()));
+    }
+
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package data;
+
+import models.Airport;
+import models.Flight;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Word index over a set of flights, for free-text filtering: a flight matches when every word of
+ * the query is its id or starts a word of its departure or arrival airport (name, city, country,
+ * IATA or ICAO code). Accents and case are ignored.
+ * <p>
+ * Words are indexed per airport rather than per flight, since an airline's flights share a small
+ * number of airports; a query then resolves each word to airports with one sorted-map range and
+ * expands those to flights. Flights are added and removed one at a time as they change.
+ */
+public class FlightSearchIndex {
+    // word -> airports having a word that starts with it is found as a range of this map
+    private final TreeMap<String, Set<Integer>> airportsByWord = new TreeMap<>();
+    private final HashMap<Integer, Set<Integer>> flightsByAirport = new HashMap<>();
+    // flight id -> {departure airport, arrival airport}
+    private final HashMap<Integer, int[]> airportsByFlight = new HashMap<>();
+
+    public FlightSearchIndex(Collection<? extends Flight> flights) {
+        flights.forEach(this::put);
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "").toLowerCase();
+        for (String word : plain.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private void indexAirport(Airport airport) {
+        if (flightsByAirport.containsKey(airport.getId())) {
+            return;
+        }
+        flightsByAirport.put(airport.getId(), new HashSet<>());
+        for (String field : new String[]{airport.getName(), airport.getCity(), airport.getCountry(), airport.getIATA(), airport.getICAO()}) {
+            for (String word : words(field)) {
+                airportsByWord.computeIfAbsent(word, key -> new HashSet<>()).add(airport.getId());
+            }
+        }
+    }
+
+    /**
+     * Adds a flight, or moves it to its current airports if it is already indexed.
+     */
+    public synchronized void put(Flight flight) {
+        if (flight.getDepAirport() == null || flight.getArrAirport() == null) {
+            return;
+        }
+        remove(flight.getId());
+        indexAirport(flight.getDepAirport());
+        indexAirport(flight.getArrAirport());
+        flightsByAirport.get(flight.getDepAirport().getId()).add(flight.getId());
+        flightsByAirport.get(flight.getArrAirport().getId()).add(flight.getId());
+        airportsByFlight.put(flight.getId(), new int[]{flight.getDepAirport().getId(), flight.getArrAirport().getId()});
+    }
+
+    public synchronized boolean contains(int flightId) {
+        return airportsByFlight.containsKey(flightId);
+    }
+
+    public synchronized void remove(int flightId) {
+        int[] airports = airportsByFlight.remove(flightId);
+        if (airports != null) {
+            flightsByAirport.get(airports[0]).remove(flightId);
+            flightsByAirport.get(airports[1]).remove(flightId);
+        }
+    }
+
+    /**
+     * Ids of the flights matching every word of {@code query}, or null when the query has no words
+     * (everything matches) or {@code cancelled} turned true before the search finished.
+     */
+    public synchronized Set<Integer> search(String query, BooleanSupplier cancelled) {
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return null;
+        }
+        // the rarest words first, so the intersection shrinks quickly
+        words.sort(Comparator.comparingInt(word -> airportsByWord.subMap(word, word + Character.MAX_VALUE).size()));
+
+        Set<Integer> result = null;
+        for (String word : words) {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+            Set<Integer> matching = new HashSet<>();
+            if (word.chars().allMatch(Character::isDigit) && word.length() < 10 && airportsByFlight.containsKey(Integer.parseInt(word))) {
+                matching.add(Integer.parseInt(word));
+            }
+            for (Set<Integer> airports : airportsByWord.subMap(word, word + Character.MAX_VALUE).values()) {
+                for (int airport : airports) {
+                    Set<Integer> flights = flightsByAirport.get(airport);
+                    if (result == null) {
+                        matching.addAll(flights);
+                    }
+                    else {
+                        // only flights still in the running need to be kept
+                        for (int flight : flights) {
+                            if (result.contains(flight)) {
+                                matching.add(flight);
+                            }
+                        }
+                    }
+                }
+            }
+            if (result != null) {
+                matching.retainAll(result);
+            }
+            result = matching;
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package data;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import models.Airline;
+import models.Flight;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes passenger manifests (who sits where on which flight) as CSV or JSON.
+ * <p>
+ * Rows are streamed from one forward-only query joining reservations, flights, airports, accounts,
+ * passengers and seats, and written as they are read; nothing is collected in between, so memory
+ * stays flat however many reservations the export covers. Rows come out by flight, then seat, in
+ * the order of the {@code reservations_flight_seat} index, so SQLite does not sort them either.
+ */
+public class ManifestExporter {
+    public enum Format { CSV, JSON }
+
+    private static final String[] COLUMNS = {
+            "flight", "departure", "from", "to", "seat", "class",
+            "firstname", "lastname", "birth_date", "gender", "country", "email", "luggages", "weight"
+    };
+    // columns written as JSON numbers rather than strings
+    private static final boolean[] NUMERIC = {
+            true, false, false, false, false, false,
+            false, false, false, false, false, false, true, true
+    };
+    // flights per query when exporting an explicit list, below SQLite's bound parameter limit
+    private static final int FLIGHTS_PER_QUERY = 500;
+
+    private static final String SELECT = "SELECT reservations.id_flight, flights.dep_epoch, flights.dep_datetime,"
+            + " dep.IATA AS dep_iata, dep.ICAO AS dep_icao, arr.IATA AS arr_iata, arr.ICAO AS arr_icao,"
+            + " seats.\"column\" AS seat_column, seats.row AS seat_row, seats.type AS seat_type,"
+            + " passengers.firstname, passengers.lastname, passengers.birthDate, passengers.gender, passengers.country,"
+            + " accounts.emailAddress, reservations.nbr_luggages, reservations.weight"
+            + " FROM reservations"
+            + " JOIN flights ON flights.id = reservations.id_flight"
+            + " LEFT JOIN airports dep ON dep.id = flights.dep_airport"
+            + " LEFT JOIN airports arr ON arr.id = flights.arr_airport"
+            + " LEFT JOIN seats ON seats.id = reservations.id_seat"
+            + " LEFT JOIN accounts ON accounts.id = reservations.id_account"
+            + " LEFT JOIN passengers ON passengers.id = accounts.id_passenger";
+    private static final String ORDER = " ORDER BY reservations.id_flight, reservations.id_seat;";
+
+    private final Format format;
+    private final Writer writer;
+    private JsonGenerator json;
+    private int count = 0;
+
+    private ManifestExporter(Format format, Writer writer) {
+        this.format = format;
+        this.writer = writer;
+    }
+
+    /**
+     * Exports the manifests of the given flights.
+     *
+     * @return the number of passengers written
+     */
+    public static int export(List<Integer> flightIds, Format format, Writer writer) throws IOException, SQLException {
+        ManifestExporter exporter = new ManifestExporter(format, writer);
+        exporter.begin();
+        for (int from = 0; from < flightIds.size(); from += FLIGHTS_PER_QUERY) {
+            List<Integer> chunk = flightIds.subList(from, Math.min(flightIds.size(), from + FLIGHTS_PER_QUERY));
+            String where = " WHERE reservations.id_flight IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            exporter.stream(where, query -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    query.setInt(i + 1, chunk.get(i));
+                }
+            });
+        }
+        exporter.end();
+        return exporter.count;
+    }
+
+    /**
+     * Exports the manifests of every flight of an airline departing in {@code [from, to)}, such as a
+     * whole season.
+     *
+     * @return the number of passengers written
+     */
+    public static int export(Airline airline, long fromEpochMinute, long toEpochMinute, Format format, Writer writer) throws IOException, SQLException {
+        ManifestExporter exporter = new ManifestExporter(format, writer);
+        exporter.begin();
+        exporter.stream(" WHERE flights.id_airline = ? AND flights.dep_epoch >= ? AND flights.dep_epoch < ?", query -> {
+            query.setInt(1, airline.getId());
+            query.setLong(2, fromEpochMinute);
+            query.setLong(3, toEpochMinute);
+        });
+        exporter.end();
+        return exporter.count;
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement query) throws SQLException;
+    }
+
+    private void stream(String where, Binder binder) throws IOException, SQLException {
+        Connection conn = DataSource.getConnection();
+        PreparedStatement query = conn.prepareStatement(SELECT + where + ORDER, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            query.setFetchSize(256);
+            binder.bind(query);
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                String column = res.getString("seat_column");
+                String[] row = {
+                        String.valueOf(res.getInt("id_flight")),
+                        Flight.fromEpochMinute(FlightDao.readEpochMinute(res, "dep_epoch", "dep_datetime")).format(FlightDao.DATETIME_FORMATTER),
+                        airportCode(res.getString("dep_iata"), res.getString("dep_icao")),
+                        airportCode(res.getString("arr_iata"), res.getString("arr_icao")),
+                        column == null ? null : column + res.getInt("seat_row"),
+                        res.getString("seat_type"),
+                        res.getString("firstname"),
+                        res.getString("lastname"),
+                        res.getString("birthDate"),
+                        res.getString("gender"),
+                        res.getString("country"),
+                        res.getString("emailAddress"),
+                        String.valueOf(res.getInt("nbr_luggages")),
+                        String.valueOf(res.getDouble("weight"))
+                };
+                writeRow(row);
+                count++;
+            }
+        } finally {
+            query.close();
+        }
+    }
+
+    private static String airportCode(String iata, String icao) {
+        return iata != null ? iata : icao;
+    }
+
+    private void begin() throws IOException {
+        if (format == Format.JSON) {
+            json = new JsonFactory().createGenerator(writer);
+            json.writeStartArray();
+        }
+        else {
+            writeCsvLine(COLUMNS);
+        }
+    }
+
+    private void writeRow(String[] row) throws IOException {
+        if (format == Format.JSON) {
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                json.writeFieldName(COLUMNS[i]);
+                if (row[i] == null) {
+                    json.writeNull();
+                }
+                else if (NUMERIC[i]) {
+                    json.writeNumber(row[i]);
+                }
+                else {
+                    json.writeString(row[i]);
+                }
+            }
+            json.writeEndObject();
+        }
+        else {
+            writeCsvLine(row);
+        }
+    }
+
+    private void end() throws IOException {
+        if (format == Format.JSON) {
+            json.writeEndArray();
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeCsvLine(String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+            else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
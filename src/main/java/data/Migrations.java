@@ -0,0 +1,187 @@
+package data;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Schema upgrades applied to the user's database when the connection is opened.
+ * The version reached is stored in {@code PRAGMA user_version}; each entry of {@link #SCRIPTS}
+ * runs once, inside its own transaction, in order.
+ */
+final class Migrations {
+
+    private static final String[][] SCRIPTS = {
+            // 1: per-flight, per-cabin seat inventory, kept in sync with reservations by triggers
+            {
+                    "CREATE TABLE IF NOT EXISTS seat_inventory (" +
+                            "id_flight INTEGER NOT NULL, " +
+                            "type TEXT NOT NULL, " +
+                            "capacity INTEGER NOT NULL, " +
+                            "available INTEGER NOT NULL, " +
+                            "PRIMARY KEY (id_flight, type)) WITHOUT ROWID;",
+
+                    "INSERT OR IGNORE INTO seat_inventory (id_flight, type, capacity, available) " +
+                            "SELECT flights.id, lower(seats.type), COUNT(*), COUNT(*) - (" +
+                            "SELECT COUNT(*) FROM reservations JOIN seats AS reserved ON reserved.id = reservations.id_seat " +
+                            "WHERE reservations.id_flight = flights.id AND lower(reserved.type) = lower(seats.type)) " +
+                            "FROM flights CROSS JOIN seats GROUP BY flights.id, lower(seats.type);",
+
+                    "CREATE TRIGGER IF NOT EXISTS seat_inventory_flight_insert AFTER INSERT ON flights BEGIN " +
+                            "INSERT OR IGNORE INTO seat_inventory (id_flight, type, capacity, available) " +
+                            "SELECT NEW.id, lower(type), COUNT(*), COUNT(*) FROM seats GROUP BY lower(type); END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS seat_inventory_flight_delete AFTER DELETE ON flights BEGIN " +
+                            "DELETE FROM seat_inventory WHERE id_flight = OLD.id; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS seat_inventory_reservation_insert AFTER INSERT ON reservations BEGIN " +
+                            "UPDATE seat_inventory SET available = available - 1 " +
+                            "WHERE id_flight = NEW.id_flight AND type = (SELECT lower(type) FROM seats WHERE id = NEW.id_seat); END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS seat_inventory_reservation_delete AFTER DELETE ON reservations BEGIN " +
+                            "UPDATE seat_inventory SET available = available + 1 " +
+                            "WHERE id_flight = OLD.id_flight AND type = (SELECT lower(type) FROM seats WHERE id = OLD.id_seat); END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS seat_inventory_reservation_update AFTER UPDATE OF id_flight, id_seat ON reservations BEGIN " +
+                            "UPDATE seat_inventory SET available = available + 1 " +
+                            "WHERE id_flight = OLD.id_flight AND type = (SELECT lower(type) FROM seats WHERE id = OLD.id_seat); " +
+                            "UPDATE seat_inventory SET available = available - 1 " +
+                            "WHERE id_flight = NEW.id_flight AND type = (SELECT lower(type) FROM seats WHERE id = NEW.id_seat); END;"
+            },
+            // 2: a seat can only be reserved once per flight; bookings that already share a seat are kept
+            // in reservation_conflicts, all but the earliest, to be settled with the passengers
+            {
+                    "CREATE TABLE IF NOT EXISTS reservation_conflicts (" +
+                            "id INTEGER PRIMARY KEY, " +
+                            "id_flight INTEGER, " +
+                            "id_account INTEGER, " +
+                            "id_seat INTEGER, " +
+                            "nbr_luggages INTEGER, " +
+                            "weight REAL, " +
+                            "kept_reservation INTEGER NOT NULL, " +
+                            "moved_at INTEGER NOT NULL);",
+
+                    "INSERT INTO reservation_conflicts (id, id_flight, id_account, id_seat, nbr_luggages, weight, kept_reservation, moved_at) " +
+                            "SELECT reservations.id, reservations.id_flight, reservations.id_account, reservations.id_seat, " +
+                            "reservations.nbr_luggages, reservations.weight, kept.id, CAST(strftime('%s', 'now', 'localtime') AS INTEGER) / 60 " +
+                            "FROM reservations JOIN (SELECT MIN(id) AS id, id_flight, id_seat FROM reservations GROUP BY id_flight, id_seat) AS kept " +
+                            "ON kept.id_flight IS reservations.id_flight AND kept.id_seat IS reservations.id_seat " +
+                            "WHERE reservations.id <> kept.id;",
+
+                    "DELETE FROM reservations WHERE id IN (SELECT id FROM reservation_conflicts);",
+
+                    "CREATE UNIQUE INDEX IF NOT EXISTS reservations_flight_seat ON reservations (id_flight, id_seat);",
+
+                    "CREATE INDEX IF NOT EXISTS reservations_account ON reservations (id_account, id_flight);"
+            },
+            // 3: counter bumped on every change to the reference tables, checked against the startup snapshot
+            {
+                    "CREATE TABLE IF NOT EXISTS reference_version (" +
+                            "id INTEGER PRIMARY KEY CHECK (id = 1), " +
+                            "version INTEGER NOT NULL);",
+
+                    "INSERT OR IGNORE INTO reference_version (id, version) VALUES (1, 1);",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_airports_insert AFTER INSERT ON airports BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_airports_update AFTER UPDATE ON airports BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_airports_delete AFTER DELETE ON airports BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_seats_insert AFTER INSERT ON seats BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_seats_update AFTER UPDATE ON seats BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_seats_delete AFTER DELETE ON seats BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_airlines_insert AFTER INSERT ON airlines BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_airlines_update AFTER UPDATE ON airlines BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;",
+
+                    "CREATE TRIGGER IF NOT EXISTS reference_version_airlines_delete AFTER DELETE ON airlines BEGIN " +
+                            "UPDATE reference_version SET version = version + 1; END;"
+            },
+            // 4: departure/arrival as integer minutes since the epoch, so date filters and ordering use an index
+            {
+                    "ALTER TABLE flights ADD COLUMN dep_epoch INTEGER;",
+
+                    "ALTER TABLE flights ADD COLUMN arr_epoch INTEGER;",
+
+                    "UPDATE flights SET dep_epoch = CAST(strftime('%s', dep_datetime) AS INTEGER) / 60, " +
+                            "arr_epoch = CAST(strftime('%s', arr_datetime) AS INTEGER) / 60;",
+
+                    "CREATE INDEX IF NOT EXISTS flights_dep_epoch ON flights (dep_epoch);",
+
+                    // rows written by older code that only knows the text columns
+                    "CREATE TRIGGER IF NOT EXISTS flights_epoch_insert AFTER INSERT ON flights " +
+                            "WHEN NEW.dep_epoch IS NULL OR NEW.arr_epoch IS NULL BEGIN " +
+                            "UPDATE flights SET dep_epoch = CAST(strftime('%s', dep_datetime) AS INTEGER) / 60, " +
+                            "arr_epoch = CAST(strftime('%s', arr_datetime) AS INTEGER) / 60 WHERE id = NEW.id; END;"
+            },
+            // 5: a revision stamped on every price or schedule change, so favorites can be diffed incrementally
+            {
+                    "CREATE TABLE IF NOT EXISTS flight_revision (" +
+                            "id INTEGER PRIMARY KEY CHECK (id = 1), " +
+                            "revision INTEGER NOT NULL);",
+
+                    "INSERT OR IGNORE INTO flight_revision (id, revision) VALUES (1, 0);",
+
+                    "ALTER TABLE flights ADD COLUMN revision INTEGER NOT NULL DEFAULT 0;",
+
+                    "CREATE INDEX IF NOT EXISTS favorites_account ON favorites (id_account, id_flight);",
+
+                    "CREATE TRIGGER IF NOT EXISTS flights_revision_update " +
+                            "AFTER UPDATE OF dep_epoch, arr_epoch, first_price, business_price, economy_price ON flights BEGIN " +
+                            "UPDATE flight_revision SET revision = revision + 1; " +
+                            "UPDATE flights SET revision = (SELECT revision FROM flight_revision) WHERE id = NEW.id; END;"
+            },
+            // 6: when each reservation was made (wall-clock epoch minutes, like flights), for booking analytics
+            {
+                    "ALTER TABLE reservations ADD COLUMN booked_at INTEGER;",
+
+                    "CREATE INDEX IF NOT EXISTS reservations_booked_at ON reservations (booked_at);",
+
+                    "CREATE TRIGGER IF NOT EXISTS reservations_booked_at_insert AFTER INSERT ON reservations " +
+                            "WHEN NEW.booked_at IS NULL BEGIN " +
+                            "UPDATE reservations SET booked_at = CAST(strftime('%s', 'now', 'localtime') AS INTEGER) / 60 WHERE id = NEW.id; END;"
+            }
+    };
+
+    private Migrations() {
+    }
+
+    static void apply(Connection conn) throws SQLException {
+        int version = 0;
+        try (Statement statement = conn.createStatement(); ResultSet res = statement.executeQuery("PRAGMA user_version;")) {
+            if (res.next()) {
+                version = res.getInt(1);
+            }
+        }
+
+        for (int i = version; i < SCRIPTS.length; i++) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement statement = conn.createStatement()) {
+                for (String sql : SCRIPTS[i]) {
+                    statement.execute(sql);
+                }
+                statement.execute("PRAGMA user_version = " + (i + 1) + ";");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package data;
+
+import javafx.scene.image.Image;
+import models.Airline;
+import models.Airport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary copy of the reference tables (airports, seats, airlines with their logos) kept next to
+ * the database, so the DAO caches can be warmed from one file read at startup instead of a round
+ * of queries.
+ * <p>
+ * The file records the {@code reference_version} counter it was written at. The triggers installed
+ * by {@link Migrations} bump that counter on any change to the reference tables; when it no longer
+ * matches, the caches are loaded from SQLite as before and the file is rewritten in the background.
+ */
+public class ReferenceSnapshot {
+    private static final int MAGIC = 0x534B594E; // "SKYN"
+    private static final int FORMAT = 1;
+
+    private ReferenceSnapshot() {
+    }
+
+    static Path getPath() {
+        return DataSource.getDataBasePath().resolveSibling("reference.snapshot");
+    }
+
+    /**
+     * Fills the airport, seat and airline caches, from the snapshot when it is current.
+     */
+    public static void warm() {
+        long version = readDataBaseVersion();
+        if (version > 0 && load(version)) {
+            return;
+        }
+
+        new AirportDao().readAll();
+        new SeatDao().readAll();
+        new AirlineDao().readAll();
+
+        if (version > 0) {
+            Thread thread = new Thread(() -> write(version), "reference-snapshot");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static long readDataBaseVersion() {
+        Connection conn = DataSource.getConnection();
+        long version = 0;
+        try {
+            PreparedStatement query = conn.prepareStatement("SELECT version FROM reference_version WHERE id = 1;");
+            ResultSet res = query.executeQuery();
+            if (res.next()) {
+                version = res.getLong("version");
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return version;
+    }
+
+    private static boolean load(long version) {
+        Path path = getPath();
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        try {
+            // read whole onto the heap rather than mapped: a mapping keeps the file open until it is
+            // garbage collected, and on Windows the rewrite could not replace it in the meantime
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT || buffer.getLong() != version) {
+                return false;
+            }
+
+            int nbAirports = buffer.getInt();
+            List<Airport> airports = new ArrayList<>(nbAirports);
+            for (int i = 0; i < nbAirports; i++) {
+                Airport airport = new Airport();
+                airport.setId(buffer.getInt());
+                airport.setName(getString(buffer));
+                airport.setCity(getString(buffer));
+                airport.setCountry(getString(buffer));
+                airport.setIATA(getString(buffer));
+                airport.setICAO(getString(buffer));
+                airports.add(airport);
+            }
+
+            int nbSeats = buffer.getInt();
+            List<SeatDao.SeatRow> seats = new ArrayList<>(nbSeats);
+            for (int i = 0; i < nbSeats; i++) {
+                int id = buffer.getInt();
+                int row = buffer.getInt();
+                seats.add(new SeatDao.SeatRow(id, row, getString(buffer), getString(buffer)));
+            }
+
+            int nbAirlines = buffer.getInt();
+            List<Airline> airlines = new ArrayList<>(nbAirlines);
+            for (int i = 0; i < nbAirlines; i++) {
+                Airline airline = new Airline();
+                airline.setId(buffer.getInt());
+                airline.setName(getString(buffer));
+                airline.setIATA(getString(buffer));
+                byte[] logo = getBytes(buffer);
+                airline.setLogo(logo == null ? null : new Image(new ByteArrayInputStream(logo)));
+                airlines.add(airline);
+            }
+
+            AirportDao.warm(airports);
+            SeatDao.warm(seats);
+            airlines.forEach(airline -> AirlineDao.airlinesMap.put(airline.getId(), airline));
+            return true;
+        } catch (IOException | BufferUnderflowException e) {
+            // a truncated or unreadable snapshot is rebuilt like a stale one
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static void write(long version) {
+        Connection conn = DataSource.getConnection();
+        Path path = getPath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(version);
+
+            writeSection(out, conn, "SELECT * FROM airports;", (section, res) -> {
+                section.writeInt(res.getInt("id"));
+                putString(section, res.getString("name"));
+                putString(section, res.getString("city"));
+                putString(section, res.getString("country"));
+                putString(section, res.getString("IATA"));
+                putString(section, res.getString("ICAO"));
+            });
+            writeSection(out, conn, "SELECT * FROM seats ORDER BY row, \"column\";", (section, res) -> {
+                section.writeInt(res.getInt("id"));
+                section.writeInt(res.getInt("row"));
+                putString(section, res.getString("column"));
+                putString(section, res.getString("type"));
+            });
+            writeSection(out, conn, "SELECT * FROM airlines;", (section, res) -> {
+                section.writeInt(res.getInt("id"));
+                putString(section, res.getString("name"));
+                putString(section, res.getString("IATA"));
+                putBytes(section, res.getBytes("logo"));
+            });
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private interface RowWriter {
+        void write(DataOutputStream section, ResultSet res) throws SQLException, IOException;
+    }
+
+    /**
+     * Writes the row count followed by the rows of one table, counted as they are written.
+     */
+    private static void writeSection(DataOutputStream out, Connection conn, String statement, RowWriter rowWriter) throws SQLException, IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream section = new DataOutputStream(bytes);
+        int count = 0;
+
+        PreparedStatement query = conn.prepareStatement(statement);
+        ResultSet res = query.executeQuery();
+        while (res.next()) {
+            rowWriter.write(section, res);
+            count++;
+        }
+        query.close();
+
+        out.writeInt(count);
+        bytes.writeTo(out);
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        putBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void putBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = getBytes(buffer);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+}
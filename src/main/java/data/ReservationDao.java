@@ -4,10 +4,15 @@ import models.*;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 
 public class ReservationDao implements Dao<Reservation> {
+    public enum BookingResult { BOOKED, SEAT_TAKEN, FAILED }
+
+    private static final int SQLITE_CONSTRAINT = 19;
+
     FlightDao flightDao = FlightDao.getInstance();
     SeatDao seatDao = new SeatDao();
     public int countReservations(Flight flight) {
@@ -34,6 +39,27 @@ public class ReservationDao implements Dao<Reservation> {
     }
 
 
+    /**
+     * Occupancy of a flight in one query: the account holding each reserved seat, keyed by seat id.
+     */
+    public HashMap<Integer, Integer> readOccupiedSeats(Flight flight) {
+        Connection conn = DataSource.getConnection();
+        HashMap<Integer, Integer> occupied = new HashMap<>();
+        String statement = "SELECT id_seat, id_account FROM reservations WHERE id_flight = ?;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            query.setInt(1, flight.getId());
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                occupied.put(res.getInt("id_seat"), res.getInt("id_account"));
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return occupied;
+    }
+
     @Override
     public int create(Reservation reservation) {
         Connection conn = DataSource.getConnection();
@@ -52,6 +78,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setId(id.getInt(1));
             }
             query.close();
+            DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.INSERTED, reservation.getId(), reservation);
             return id.getInt(1);
         } catch (SQLException e) {
             e.printStackTrace();
@@ -59,6 +86,197 @@ public class ReservationDao implements Dao<Reservation> {
         return 0;
     }
 
+    /**
+     * Books the reservation's seat with a single write: an insert for a new reservation, or an
+     * update of the existing row when the reservation already has an id. The unique index on
+     * (id_flight, id_seat) rejects the write when another session holds the seat, which is
+     * reported as {@link BookingResult#SEAT_TAKEN} instead of being checked with a prior read. An
+     * update of a reservation that has since been cancelled is {@link BookingResult#FAILED}.
+     */
+    public BookingResult book(Reservation reservation) {
+        Connection conn = DataSource.getConnection();
+        boolean isNew = reservation.getId() == 0;
+        String statement = isNew
+                ? "INSERT INTO reservations (id_flight, id_account, id_seat, nbr_luggages, weight) VALUES (?,?,?,?,?);"
+                : "UPDATE reservations SET id_flight = ?, id_account = ?, id_seat = ?, nbr_luggages = ?, weight = ? WHERE id = ?;";
+        try {
+            PreparedStatement query = isNew
+                    ? conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(statement);
+            bindReservation(query, 0, reservation);
+            if (!isNew) {
+                query.setInt(6, reservation.getId());
+            }
+
+            try {
+                if (query.executeUpdate() == 0) {
+                    // the reservation being changed no longer exists
+                    return BookingResult.FAILED;
+                }
+                if (isNew) {
+                    ResultSet id = query.getGeneratedKeys();
+                    if (id.next()) {
+                        reservation.setId(id.getInt(1));
+                    }
+                }
+            } finally {
+                query.close();
+            }
+            DataEventBus.getInstance().publish(Reservation.class, isNew ? DataEvent.Change.INSERTED : DataEvent.Change.UPDATED, reservation.getId(), reservation);
+            return BookingResult.BOOKED;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == SQLITE_CONSTRAINT) {
+                return BookingResult.SEAT_TAKEN;
+            }
+            e.printStackTrace();
+            return BookingResult.FAILED;
+        }
+    }
+
+    /**
+     * Books a seat by ids, as {@link #book(Reservation)} does for a new reservation, for callers
+     * without {@link Seat} nodes (the HTTP server). The published reservation has no seat.
+     */
+    public BookingResult book(Flight flight, int account, int seat, int nbrLuggages, double weight) {
+        Connection conn = DataSource.getConnection();
+        String statement = "INSERT INTO reservations (id_flight, id_account, id_seat, nbr_luggages, weight) VALUES (?,?,?,?,?) RETURNING id;";
+        Reservation reservation = new Reservation();
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            try {
+                query.setInt(1, flight.getId());
+                query.setInt(2, account);
+                query.setInt(3, seat);
+                query.setInt(4, nbrLuggages);
+                query.setDouble(5, weight);
+                ResultSet id = query.executeQuery();
+                if (id.next()) {
+                    reservation.setId(id.getInt(1));
+                }
+            } finally {
+                query.close();
+            }
+        } catch (SQLException e) {
+            if (e.getErrorCode() == SQLITE_CONSTRAINT) {
+                return BookingResult.SEAT_TAKEN;
+            }
+            e.printStackTrace();
+            return BookingResult.FAILED;
+        }
+
+        reservation.setFlight(flight);
+        reservation.setAccount(account);
+        reservation.setNbrLuggages(nbrLuggages);
+        reservation.setWeight(weight);
+        DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.INSERTED, reservation.getId(), reservation);
+        return BookingResult.BOOKED;
+    }
+
+    /**
+     * Books several seats of the same flight, all or nothing, in place of the account's current
+     * reservations on it ({@code replaced}, possibly empty): a replaced reservation whose seat is
+     * still wanted is kept as it is, the others are moved to the remaining seats with a batched
+     * update, and any left over are cancelled. Seats still missing are added with a single
+     * multi-row insert. Everything runs in one transaction; if any seat is already reserved by
+     * someone else, or a replaced reservation no longer exists, the whole group is rolled back.
+     */
+    public BookingResult bookGroup(List<Reservation> reservations, List<Reservation> replaced) {
+        HashMap<Integer, Reservation> replacedBySeat = new HashMap<>();
+        replaced.forEach(reservation -> replacedBySeat.put(reservation.getSeat().getPrimaryKey(), reservation));
+
+        // kept seats first, so no update moves a reservation onto a seat the group still holds
+        List<Reservation> inserts = new ArrayList<>();
+        List<Reservation> updates = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            Reservation current = replacedBySeat.remove(reservation.getSeat().getPrimaryKey());
+            if (current != null) {
+                reservation.setId(current.getId());
+                updates.add(reservation);
+            }
+            else {
+                inserts.add(reservation);
+            }
+        }
+        List<Reservation> cancelled = new ArrayList<>(replacedBySeat.values());
+        cancelled.sort(Comparator.comparingInt(Reservation::getId));
+        while (!inserts.isEmpty() && !cancelled.isEmpty()) {
+            Reservation reservation = inserts.remove(0);
+            reservation.setId(cancelled.remove(0).getId());
+            updates.add(reservation);
+        }
+
+        HashMap<Integer, Integer> generatedIds = new HashMap<>();
+        try {
+            DataSource.inTransaction(conn -> {
+                if (!cancelled.isEmpty()) {
+                    PreparedStatement query = conn.prepareStatement("DELETE FROM reservations WHERE id = ?;");
+                    for (Reservation reservation : cancelled) {
+                        query.setInt(1, reservation.getId());
+                        query.addBatch();
+                    }
+                    query.executeBatch();
+                    query.close();
+                }
+
+                if (!updates.isEmpty()) {
+                    PreparedStatement query = conn.prepareStatement("UPDATE reservations SET id_flight = ?, id_account = ?, id_seat = ?, nbr_luggages = ?, weight = ? WHERE id = ?;");
+                    for (Reservation reservation : updates) {
+                        bindReservation(query, 0, reservation);
+                        query.setInt(6, reservation.getId());
+                        query.addBatch();
+                    }
+                    int[] counts = query.executeBatch();
+                    query.close();
+                    for (int count : counts) {
+                        if (count != 1) {
+                            // a reservation being moved has been cancelled since it was read
+                            throw new SQLException("A reservation of the group no longer exists");
+                        }
+                    }
+                }
+
+                if (!inserts.isEmpty()) {
+                    StringBuilder statement = new StringBuilder("INSERT INTO reservations (id_flight, id_account, id_seat, nbr_luggages, weight) VALUES ");
+                    for (int i = 0; i < inserts.size(); i++) {
+                        statement.append(i == 0 ? "(?,?,?,?,?)" : ",(?,?,?,?,?)");
+                    }
+                    statement.append(" RETURNING id, id_seat;");
+
+                    PreparedStatement query = conn.prepareStatement(statement.toString());
+                    for (int i = 0; i < inserts.size(); i++) {
+                        bindReservation(query, i * 5, inserts.get(i));
+                    }
+                    ResultSet res = query.executeQuery();
+                    while (res.next()) {
+                        generatedIds.put(res.getInt("id_seat"), res.getInt("id"));
+                    }
+                    query.close();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            if (e.getErrorCode() == SQLITE_CONSTRAINT) {
+                return BookingResult.SEAT_TAKEN;
+            }
+            e.printStackTrace();
+            return BookingResult.FAILED;
+        }
+
+        inserts.forEach(reservation -> reservation.setId(generatedIds.getOrDefault(reservation.getSeat().getPrimaryKey(), 0)));
+        cancelled.forEach(reservation -> DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.DELETED, reservation.getId(), reservation));
+        updates.forEach(reservation -> DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.UPDATED, reservation.getId(), reservation));
+        inserts.forEach(reservation -> DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.INSERTED, reservation.getId(), reservation));
+        return BookingResult.BOOKED;
+    }
+
+    private void bindReservation(PreparedStatement query, int offset, Reservation reservation) throws SQLException {
+        query.setInt(offset + 1, reservation.getFlight().getId());
+        query.setInt(offset + 2, reservation.getAccount().getId());
+        query.setInt(offset + 3, reservation.getSeat().getPrimaryKey());
+        query.setInt(offset + 4, reservation.getNbrLuggages());
+        query.setDouble(offset + 5, reservation.getWeight());
+    }
+
     @Override
     public Reservation read(int id) {
         Connection conn = DataSource.getConnection();
@@ -77,7 +295,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setAccount((res.getInt("id_account")));
                 reservation.setSeat(seatDao.read(res.getInt("id_seat")));
                 reservation.setNbrLuggages(res.getInt("nbr_luggages"));
-                reservation.setWeight(res.getInt("weight"));
+                reservation.setWeight(res.getDouble("weight"));
             }
 
             query.close();
@@ -104,7 +322,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setAccount((res.getInt("id_account")));
                 reservation.setSeat(seatDao.read(res.getInt("id_seat")));
                 reservation.setNbrLuggages(res.getInt("nbr_luggages"));
-                reservation.setWeight(res.getInt("weight"));
+                reservation.setWeight(res.getDouble("weight"));
 
                 list.add(reservation);
             }
@@ -115,6 +333,36 @@ public class ReservationDao implements Dao<Reservation> {
         }
     }
 
+    /**
+     * Every reservation on a flight, in seat order.
+     */
+    public List<Reservation> read(Flight flight) {
+        Connection conn = DataSource.getConnection();
+        List<Reservation> list = new ArrayList<>();
+        String statement = "SELECT * FROM reservations WHERE id_flight = ? ORDER BY id_seat;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            query.setInt(1, flight.getId());
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                Reservation reservation = new Reservation();
+                reservation.setId(res.getInt("id"));
+                reservation.setFlight(flight);
+                reservation.setAccount((res.getInt("id_account")));
+                reservation.setSeat(seatDao.read(res.getInt("id_seat")));
+                reservation.setNbrLuggages(res.getInt("nbr_luggages"));
+                reservation.setWeight(res.getDouble("weight"));
+
+                list.add(reservation);
+            }
+            query.close();
+            return list;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     public Reservation read(Flight flight, Seat seat) {
         Connection conn = DataSource.getConnection();
         Reservation reservation = null;
@@ -133,7 +381,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setAccount((res.getInt("id_account")));
                 reservation.setSeat(seatDao.read(res.getInt("id_seat")));
                 reservation.setNbrLuggages(res.getInt("nbr_luggages"));
-                reservation.setWeight(res.getInt("weight"));
+                reservation.setWeight(res.getDouble("weight"));
             }
 
             query.close();
@@ -164,7 +412,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setAccount((res.getInt("id_account")));
                 reservation.setSeat(seatDao.read(res.getInt("id_seat")));
                 reservation.setNbrLuggages(res.getInt("nbr_luggages"));
-                reservation.setWeight(res.getInt("weight"));
+                reservation.setWeight(res.getDouble("weight"));
             }
 
             query.close();
@@ -194,7 +442,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setAccount((res.getInt("id_account")));
                 reservation.setSeat(seatDao.read(res.getInt("id_seat")));
                 reservation.setNbrLuggages(res.getInt("nbr_luggages"));
-                reservation.setWeight(res.getInt("weight"));
+                reservation.setWeight(res.getDouble("weight"));
             }
 
             query.close();
@@ -207,6 +455,69 @@ public class ReservationDao implements Dao<Reservation> {
     }
 
 
+    /**
+     * Every reservation the account holds on the flight, oldest first: one per seat of a group
+     * booking. The luggage of a booking is entered once and stored on one of its reservations, so
+     * the booking's luggage is the sum over them.
+     */
+    public List<Reservation> readGroup(Flight flight, Account account) {
+        Connection conn = DataSource.getConnection();
+        List<Reservation> list = new ArrayList<>();
+        String statement = "SELECT * FROM reservations WHERE id_flight = ? AND id_account = ? ORDER BY id;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            query.setInt(1, flight.getId());
+            query.setInt(2, account.getId());
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                Reservation reservation = new Reservation();
+                reservation.setId(res.getInt("id"));
+                reservation.setFlight(flight);
+                reservation.setAccount(res.getInt("id_account"));
+                reservation.setSeat(seatDao.read(res.getInt("id_seat")));
+                reservation.setNbrLuggages(res.getInt("nbr_luggages"));
+                reservation.setWeight(res.getDouble("weight"));
+
+                list.add(reservation);
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    /**
+     * Cancels every reservation the account holds on the flight, with a single delete.
+     *
+     * @return the number of seats released
+     */
+    public int cancelGroup(Flight flight, Account account) {
+        Connection conn = DataSource.getConnection();
+        List<Reservation> cancelled = new ArrayList<>();
+        try {
+            PreparedStatement query = conn.prepareStatement("DELETE FROM reservations WHERE id_flight = ? AND id_account = ? RETURNING id, id_seat, nbr_luggages, weight;");
+            query.setInt(1, flight.getId());
+            query.setInt(2, account.getId());
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                Reservation reservation = new Reservation();
+                reservation.setId(res.getInt("id"));
+                reservation.setFlight(flight);
+                reservation.setAccount(account.getId());
+                reservation.setSeat(seatDao.read(res.getInt("id_seat")));
+                reservation.setNbrLuggages(res.getInt("nbr_luggages"));
+                reservation.setWeight(res.getDouble("weight"));
+                cancelled.add(reservation);
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        cancelled.forEach(reservation -> DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.DELETED, reservation.getId(), reservation));
+        return cancelled.size();
+    }
+
     @Override
     public List<Reservation> readAll() {
         Connection conn = DataSource.getConnection();
@@ -222,7 +533,7 @@ public class ReservationDao implements Dao<Reservation> {
                 reservation.setAccount((res.getInt("id_account")));
                 reservation.setSeat(seatDao.read(res.getInt("id_seat")));
                 reservation.setNbrLuggages(res.getInt("nbr_luggages"));
-                reservation.setWeight(res.getInt("weight"));
+                reservation.setWeight(res.getDouble("weight"));
 
                 list.add(reservation);
             }
@@ -282,6 +593,7 @@ public class ReservationDao implements Dao<Reservation> {
 
             query.executeUpdate();
             query.close();
+            DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.UPDATED, id, reservation);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -292,10 +604,24 @@ public class ReservationDao implements Dao<Reservation> {
     public void delete(int id) {
         Connection conn = DataSource.getConnection();
         try {
-            PreparedStatement query = conn.prepareStatement("DELETE FROM reservations WHERE id = ? ;");
+            PreparedStatement query = conn.prepareStatement("DELETE FROM reservations WHERE id = ? RETURNING id_flight, id_account, id_seat, nbr_luggages, weight;");
             query.setInt(1, id);
-            query.executeUpdate();
+            ResultSet res = query.executeQuery();
+            // the deleted row is passed on so listeners know which flight lost a passenger
+            Reservation reservation = null;
+            if (res.next()) {
+                reservation = new Reservation();
+                reservation.setId(id);
+                reservation.setFlight(flightDao.read(res.getInt("id_flight")));
+                reservation.setAccount(res.getInt("id_account"));
+                reservation.setSeat(seatDao.read(res.getInt("id_seat")));
+                reservation.setNbrLuggages(res.getInt("nbr_luggages"));
+                reservation.setWeight(res.getDouble("weight"));
+            }
             query.close();
+            if (reservation != null) {
+                DataEventBus.getInstance().publish(Reservation.class, DataEvent.Change.DELETED, id, reservation);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
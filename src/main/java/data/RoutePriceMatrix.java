@@ -0,0 +1,296 @@
+package data;
+
+import models.Airport;
+import models.Flight;
+import models.RouteFare;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Cheapest economy fare between every pair of cities, per departure day over the next
+ * {@link #WINDOW_DAYS} days. Built with one scan of the flights in the window, then kept current
+ * from the {@link DataEventBus}: an insert can only lower a day's fare, while an update or delete
+ * recomputes the affected days from the flights of the window, which are kept per route. A bulk
+ * update is applied to those flights in memory.
+ * <p>
+ * Cities are numbered once; each (departure, arrival) pair that has flights holds one
+ * {@code float[WINDOW_DAYS]}, so memory grows with the routes actually flown rather than with the
+ * square of the number of cities.
+ */
+public class RoutePriceMatrix {
+    public static final int WINDOW_DAYS = 90;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final float NO_FARE = Float.POSITIVE_INFINITY;
+    // below SQLite's default limit of 999 bound parameters
+    private static final int IDS_PER_STATEMENT = 500;
+
+    private static RoutePriceMatrix routePriceMatrix;
+
+    public static synchronized RoutePriceMatrix getInstance() {
+        if (routePriceMatrix == null) {
+            routePriceMatrix = new RoutePriceMatrix();
+            DataEventBus.getInstance().subscribe(routePriceMatrix, Flight.class, RoutePriceMatrix::onFlightChanged);
+        }
+        return routePriceMatrix;
+    }
+
+    // city number -> {country, city}, and back
+    private final List<String[]> cities = new ArrayList<>();
+    private final HashMap<String, Integer> cityNumbers = new HashMap<>();
+    private final HashMap<Integer, Integer> airportCities = new HashMap<>();
+    private final HashMap<Integer, List<Integer>> cityAirports = new HashMap<>();
+
+    private final HashMap<Long, float[]> fares = new HashMap<>();
+    // the flights of the window, by id and by route, so a changed day is recomputed without a query
+    private final HashMap<Integer, WindowFlight> windowFlights = new HashMap<>();
+    private final HashMap<Long, List<WindowFlight>> routeFlights = new HashMap<>();
+    private long firstDay = Long.MIN_VALUE;
+
+    private static final class WindowFlight {
+        private final int id;
+        private final int depAirport;
+        private final int arrAirport;
+        private final long depEpochMinute;
+        private final double price;
+        private final long route;
+        private final int day;
+
+        private WindowFlight(int id, int depAirport, int arrAirport, long depEpochMinute, double price, long route, int day) {
+            this.id = id;
+            this.depAirport = depAirport;
+            this.arrAirport = arrAirport;
+            this.depEpochMinute = depEpochMinute;
+            this.price = price;
+            this.route = route;
+            this.day = day;
+        }
+    }
+
+    private RoutePriceMatrix() {
+    }
+
+    private static long route(int depCity, int arrCity) {
+        return ((long) depCity << 32) | (arrCity & 0xFFFFFFFFL);
+    }
+
+    private int cityNumber(String country, String city) {
+        return cityNumbers.computeIfAbsent(country + '\0' + city, key -> {
+            cities.add(new String[]{country, city});
+            return cities.size() - 1;
+        });
+    }
+
+    private int airportCity(int airport) {
+        Integer city = airportCities.get(airport);
+        if (city == null) {
+            Airport stored = new AirportDao().read(airport);
+            if (stored == null) {
+                return -1;
+            }
+            city = cityNumber(stored.getCountry(), stored.getCity());
+            airportCities.put(airport, city);
+            cityAirports.computeIfAbsent(city, key -> new ArrayList<>()).add(airport);
+        }
+        return city;
+    }
+
+    /**
+     * Rebuilds the whole matrix when the window has moved since it was last built.
+     */
+    private void ensureCurrent() {
+        long today = LocalDate.now().toEpochDay();
+        if (today == firstDay) {
+            return;
+        }
+
+        firstDay = today;
+        fares.clear();
+        windowFlights.clear();
+        routeFlights.clear();
+        if (AirportDao.airportsMap.isEmpty()) {
+            new AirportDao().readAll();
+        }
+        AirportDao.airportsMap.keySet().forEach(this::airportCity);
+
+        Connection conn = DataSource.getConnection();
+        try {
+            PreparedStatement query = conn.prepareStatement("SELECT id, dep_airport, arr_airport, dep_epoch, economy_price FROM flights WHERE dep_epoch >= ? AND dep_epoch < ?;");
+            query.setLong(1, firstDay * MINUTES_PER_DAY);
+            query.setLong(2, (firstDay + WINDOW_DAYS) * MINUTES_PER_DAY);
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                addFlight(res.getInt("id"), res.getInt("dep_airport"), res.getInt("arr_airport"), res.getLong("dep_epoch"), res.getDouble("economy_price"));
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the given flights that depart inside the window, in chunks below SQLite's bound
+     * parameter limit.
+     */
+    private void readFlights(List<Integer> ids) {
+        Connection conn = DataSource.getConnection();
+        try {
+            for (int from = 0; from < ids.size(); from += IDS_PER_STATEMENT) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IDS_PER_STATEMENT));
+                PreparedStatement query = conn.prepareStatement("SELECT id, dep_airport, arr_airport, dep_epoch, economy_price FROM flights WHERE dep_epoch >= ? AND dep_epoch < ? AND id IN ("
+                        + String.join(",", Collections.nCopies(chunk.size(), "?")) + ");");
+                query.setLong(1, firstDay * MINUTES_PER_DAY);
+                query.setLong(2, (firstDay + WINDOW_DAYS) * MINUTES_PER_DAY);
+                for (int i = 0; i < chunk.size(); i++) {
+                    query.setInt(i + 3, chunk.get(i));
+                }
+                ResultSet res = query.executeQuery();
+                while (res.next()) {
+                    addFlight(res.getInt("id"), res.getInt("dep_airport"), res.getInt("arr_airport"), res.getLong("dep_epoch"), res.getDouble("economy_price"));
+                }
+                query.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void addFlight(int id, int depAirport, int arrAirport, long depEpochMinute, double price) {
+        int day = (int) (Math.floorDiv(depEpochMinute, MINUTES_PER_DAY) - firstDay);
+        int depCity = airportCity(depAirport);
+        int arrCity = airportCity(arrAirport);
+        if (day < 0 || day >= WINDOW_DAYS || depCity < 0 || arrCity < 0) {
+            return;
+        }
+
+        long route = route(depCity, arrCity);
+        float[] days = fares.computeIfAbsent(route, key -> {
+            float[] empty = new float[WINDOW_DAYS];
+            Arrays.fill(empty, NO_FARE);
+            return empty;
+        });
+        days[day] = Math.min(days[day], (float) price);
+
+        WindowFlight flight = new WindowFlight(id, depAirport, arrAirport, depEpochMinute, price, route, day);
+        windowFlights.put(id, flight);
+        routeFlights.computeIfAbsent(route, key -> new ArrayList<>()).add(flight);
+    }
+
+    /**
+     * Takes a flight out of the window and recomputes the cheapest fare of the day it counted towards.
+     *
+     * @return the flight as it was, or null when it was not in the window
+     */
+    private WindowFlight removeFlight(int id) {
+        WindowFlight flight = windowFlights.remove(id);
+        if (flight == null) {
+            return null;
+        }
+        List<WindowFlight> flights = routeFlights.get(flight.route);
+        flights.remove(flight);
+
+        float cheapest = NO_FARE;
+        for (WindowFlight other : flights) {
+            if (other.day == flight.day) {
+                cheapest = Math.min(cheapest, (float) other.price);
+            }
+        }
+        fares.get(flight.route)[flight.day] = cheapest;
+        return flight;
+    }
+
+    /**
+     * Applies a bulk update to the flights of the window in memory. Flights outside it are read
+     * back, in case the change brought them in.
+     */
+    private void updateFlights(List<Integer> ids, Consumer<Flight> update) {
+        List<Integer> outside = new ArrayList<>();
+        Flight changed = new Flight();
+        for (int id : ids) {
+            WindowFlight flight = removeFlight(id);
+            if (flight == null) {
+                outside.add(id);
+                continue;
+            }
+            changed.setDepEpochMinute(flight.depEpochMinute);
+            changed.setEconomyPrice(flight.price);
+            update.accept(changed);
+            addFlight(id, flight.depAirport, flight.arrAirport, changed.getDepEpochMinute(), changed.getEconomyPrice());
+        }
+        readFlights(outside);
+    }
+
+    private synchronized void onFlightChanged(DataEvent<Flight> event) {
+        if (firstDay == Long.MIN_VALUE) {
+            // not built yet; the first query reads everything
+            return;
+        }
+
+        if (event.isBulk()) {
+            switch (event.getChange()) {
+                case UPDATED -> updateFlights(event.getIds(), event.getUpdate());
+                case DELETED -> event.getIds().forEach(this::removeFlight);
+                case INSERTED -> event.getObjects().forEach(flight -> addFlight(flight.getId(), flight.getDepAirport().getId(),
+                        flight.getArrAirport().getId(), flight.getDepEpochMinute(), flight.getEconomyPrice()));
+            }
+            return;
+        }
+
+        if (event.getChange() != DataEvent.Change.INSERTED) {
+            removeFlight(event.getId());
+        }
+        Flight flight = switch (event.getChange()) {
+            case INSERTED -> event.getObject();
+            // an update may carry only the changed fields
+            case UPDATED -> FlightDao.getInstance().read(event.getId());
+            case DELETED -> null;
+        };
+        if (flight != null) {
+            addFlight(flight.getId(), flight.getDepAirport().getId(), flight.getArrAirport().getId(), flight.getDepEpochMinute(), flight.getEconomyPrice());
+        }
+    }
+
+    /**
+     * Cheapest fare to each destination from a city in the part of {@code month} inside the
+     * window, cheapest first.
+     */
+    public synchronized List<RouteFare> cheapestFrom(String country, String city, YearMonth month) {
+        ensureCurrent();
+        List<RouteFare> list = new ArrayList<>();
+        Integer depCity = cityNumbers.get(country + '\0' + city);
+        if (depCity == null) {
+            return list;
+        }
+
+        int from = (int) Math.max(0, month.atDay(1).toEpochDay() - firstDay);
+        int to = (int) Math.min(WINDOW_DAYS, month.atEndOfMonth().toEpochDay() - firstDay + 1);
+
+        fares.forEach((route, days) -> {
+            if ((int) (route >>> 32) != depCity) {
+                return;
+            }
+            int cheapestDay = -1;
+            for (int day = from; day < to; day++) {
+                if (days[day] != NO_FARE && (cheapestDay < 0 || days[day] < days[cheapestDay])) {
+                    cheapestDay = day;
+                }
+            }
+            if (cheapestDay >= 0) {
+                String[] arrival = cities.get((int) (long) route);
+                RouteFare fare = new RouteFare();
+                fare.setDepCountry(country);
+                fare.setDepCity(city);
+                fare.setArrCountry(arrival[0]);
+                fare.setArrCity(arrival[1]);
+                fare.setDate(LocalDate.ofEpochDay(firstDay + cheapestDay));
+                fare.setPrice(days[cheapestDay]);
+                list.add(fare);
+            }
+        });
+        list.sort(Comparator.comparingDouble(RouteFare::getPrice));
+        return list;
+    }
+}
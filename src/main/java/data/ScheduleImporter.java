@@ -0,0 +1,445 @@
+package data;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import models.Airline;
+import models.Airport;
+import models.Flight;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Imports an airline's timetable from a CSV or JSON file.
+ * <p>
+ * Each record describes one flight, or a series of them when it has a {@code repeat} pattern.
+ * CSV files start with a header naming the columns; JSON files hold an array of objects with the
+ * same keys:
+ * <ul>
+ *     <li>{@code from}, {@code to}: IATA or ICAO code of a known airport</li>
+ *     <li>{@code departure}, {@code arrival}: first departure and arrival, {@code yyyy-MM-dd HH:mm}</li>
+ *     <li>{@code first_price}, {@code business_price}, {@code economy_price}, and optionally
+ *     {@code luggage_price}, {@code weight_price}</li>
+ *     <li>{@code repeat} (optional): {@code daily}, {@code weekly}, {@code weekdays}, {@code weekends} or
+ *     day names ({@code mon wed fri}), an optional departure time, then {@code until} a date or a
+ *     month, e.g. {@code daily 08:15 until March}</li>
+ * </ul>
+ * The whole file is validated before anything is written, and its flights are then inserted with
+ * multi-row statements in a single transaction: a file with errors, or whose insert fails midway,
+ * imports nothing. The flights are announced on the {@link DataEventBus} as a single event once
+ * committed.
+ */
+public class ScheduleImporter {
+    private static final String[] REQUIRED_COLUMNS = {"from", "to", "departure", "arrival", "first_price", "business_price", "economy_price"};
+    // 12 parameters a row keeps a statement under SQLite's default limit of 999
+    private static final int ROWS_PER_STATEMENT = 80;
+    // longest series a single record may expand to
+    private static final int MAX_OCCURRENCES = 2 * 366;
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    public static class Result {
+        private int imported;
+        private final List<String> errors = new ArrayList<>();
+
+        public int getImported() {
+            return imported;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    private final Airline airline;
+    private final HashMap<String, Airport> airportsByCode = new HashMap<>();
+    private final List<Flight> flights = new ArrayList<>();
+    private final Result result = new Result();
+
+    private ScheduleImporter(Airline airline) {
+        this.airline = airline;
+        if (AirportDao.airportsMap.isEmpty()) {
+            new AirportDao().readAll();
+        }
+        for (Airport airport : AirportDao.airportsMap.values()) {
+            if (airport.getICAO() != null) {
+                airportsByCode.put(airport.getICAO().toUpperCase(), airport);
+            }
+            if (airport.getIATA() != null) {
+                airportsByCode.put(airport.getIATA().toUpperCase(), airport);
+            }
+        }
+    }
+
+    /**
+     * Reads a {@code .csv} or {@code .json} timetable and adds its flights to the airline.
+     */
+    public static Result importFile(Airline airline, Path path) throws IOException {
+        ScheduleImporter importer = new ScheduleImporter(airline);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            if (path.getFileName().toString().toLowerCase().endsWith(".json")) {
+                importer.readJson(reader);
+            }
+            else {
+                importer.readCsv(reader);
+            }
+        }
+        if (importer.result.errors.isEmpty()) {
+            importer.insert();
+        }
+        return importer.result;
+    }
+
+    private void readJson(Reader reader) throws IOException {
+        MappingIterator<Map<String, Object>> records = new ObjectMapper().readerForMapOf(Object.class).readValues(reader);
+        int index = 1;
+        while (records.hasNextValue()) {
+            Map<String, String> record = new HashMap<>();
+            records.nextValue().forEach((key, value) -> record.put(key.toLowerCase(), value == null ? null : value.toString()));
+            addRecord("Flight " + index++, record);
+        }
+    }
+
+    private void readCsv(BufferedReader reader) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            error("The file is empty");
+            return;
+        }
+        header.replaceAll(column -> column.trim().toLowerCase());
+        for (String column : REQUIRED_COLUMNS) {
+            if (!header.contains(column)) {
+                error("Missing column '" + column + "'");
+            }
+        }
+        if (!result.errors.isEmpty()) {
+            return;
+        }
+
+        List<String> values;
+        int line = 1;
+        while ((values = readCsvRecord(reader)) != null) {
+            line++;
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < Math.min(header.size(), values.size()); i++) {
+                record.put(header.get(i), values.get(i));
+            }
+            addRecord("Line " + line, record);
+        }
+    }
+
+    /**
+     * Reads one CSV record, which may span several lines when a quoted field holds line breaks.
+     */
+    private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    }
+                    else if (c == '"') {
+                        quoted = false;
+                    }
+                    else {
+                        value.append(c);
+                    }
+                }
+                else if (c == '"') {
+                    quoted = true;
+                }
+                else if (c == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                }
+                else {
+                    value.append(c);
+                }
+            }
+            if (!quoted || (line = reader.readLine()) == null) {
+                break;
+            }
+            value.append('\n');
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private void error(String message) {
+        if (result.errors.size() < MAX_REPORTED_ERRORS) {
+            result.errors.add(message);
+        }
+        else if (result.errors.size() == MAX_REPORTED_ERRORS) {
+            result.errors.add("…");
+        }
+    }
+
+    private void addRecord(String where, Map<String, String> record) {
+        try {
+            Airport depAirport = airport(record, "from");
+            Airport arrAirport = airport(record, "to");
+            LocalDateTime departure = dateTime(record, "departure");
+            LocalDateTime arrival = dateTime(record, "arrival");
+            double firstPrice = price(record, "first_price", true);
+            double businessPrice = price(record, "business_price", true);
+            double economyPrice = price(record, "economy_price", true);
+            double luggagePrice = price(record, "luggage_price", false);
+            double weightPrice = price(record, "weight_price", false);
+
+            if (depAirport.getId() == arrAirport.getId()) {
+                throw new IllegalArgumentException("departure and arrival airports are the same");
+            }
+            if (!departure.isBefore(arrival)) {
+                throw new IllegalArgumentException("arrival should be after departure");
+            }
+
+            long duration = Flight.toEpochMinute(arrival) - Flight.toEpochMinute(departure);
+            for (LocalDateTime occurrence : occurrences(departure, record.get("repeat"))) {
+                Flight flight = new Flight();
+                flight.setAirline(airline.getId());
+                flight.setDepAirport(depAirport);
+                flight.setArrAirport(arrAirport);
+                flight.setDepEpochMinute(Flight.toEpochMinute(occurrence));
+                flight.setArrEpochMinute(flight.getDepEpochMinute() + duration);
+                flight.setFirstPrice(firstPrice);
+                flight.setBusinessPrice(businessPrice);
+                flight.setEconomyPrice(economyPrice);
+                flight.setLuggagePrice(luggagePrice);
+                flight.setWeightPrice(weightPrice);
+                flights.add(flight);
+            }
+        } catch (IllegalArgumentException e) {
+            error(where + ": " + e.getMessage());
+        }
+    }
+
+    private Airport airport(Map<String, String> record, String column) {
+        String code = record.get(column);
+        if (code == null || code.isBlank()) {
+            throw new IllegalArgumentException("'" + column + "' is empty");
+        }
+        Airport airport = airportsByCode.get(code.trim().toUpperCase());
+        if (airport == null) {
+            throw new IllegalArgumentException("unknown airport '" + code.trim() + "'");
+        }
+        return airport;
+    }
+
+    private static LocalDateTime dateTime(Map<String, String> record, String column) {
+        String value = record.get(column);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("'" + column + "' is empty");
+        }
+        try {
+            return LocalDateTime.parse(value.trim().replace('T', ' '), FlightDao.DATETIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'" + column + "' should look like 2024-03-01 08:15");
+        }
+    }
+
+    private static double price(Map<String, String> record, String column, boolean required) {
+        String value = record.get(column);
+        if (value == null || value.isBlank()) {
+            if (required) {
+                throw new IllegalArgumentException("'" + column + "' is empty");
+            }
+            return 0;
+        }
+        try {
+            double price = Double.parseDouble(value.trim());
+            if (price < 0) {
+                throw new IllegalArgumentException("'" + column + "' is negative");
+            }
+            return price;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + column + "' is not a number");
+        }
+    }
+
+    /**
+     * Departures of a record: the first one alone, or the series described by its repeat pattern.
+     */
+    static List<LocalDateTime> occurrences(LocalDateTime first, String repeat) {
+        if (repeat == null || repeat.isBlank() || repeat.trim().equalsIgnoreCase("once")) {
+            return List.of(first);
+        }
+
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        LocalTime time = first.toLocalTime();
+        LocalDate until = null;
+        String[] tokens = repeat.trim().toLowerCase().split("[\\s,]+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            switch (token) {
+                case "daily", "everyday" -> days.addAll(EnumSet.allOf(DayOfWeek.class));
+                case "weekly" -> days.add(first.getDayOfWeek());
+                case "weekdays" -> days.addAll(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+                case "weekends" -> days.addAll(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+                case "until" -> {
+                    if (i + 1 >= tokens.length) {
+                        throw new IllegalArgumentException("'until' needs a date or a month");
+                    }
+                    until = endDate(first.toLocalDate(), tokens[++i]);
+                }
+                default -> {
+                    if (token.matches("\\d{1,2}:\\d{2}")) {
+                        int hour = Integer.parseInt(token.substring(0, token.indexOf(':')));
+                        int minute = Integer.parseInt(token.substring(token.indexOf(':') + 1));
+                        if (hour > 23 || minute > 59) {
+                            throw new IllegalArgumentException("'" + token + "' is not a time of day");
+                        }
+                        time = LocalTime.of(hour, minute);
+                    }
+                    else {
+                        days.add(dayOfWeek(token));
+                    }
+                }
+            }
+        }
+        if (days.isEmpty()) {
+            throw new IllegalArgumentException("'" + repeat + "' does not say which days to repeat on");
+        }
+        if (until == null) {
+            throw new IllegalArgumentException("'" + repeat + "' needs an end, e.g. 'until 2024-03-31' or 'until March'");
+        }
+
+        List<LocalDateTime> list = new ArrayList<>();
+        for (LocalDate date = first.toLocalDate(); !date.isAfter(until); date = date.plusDays(1)) {
+            if (days.contains(date.getDayOfWeek())) {
+                if (list.size() == MAX_OCCURRENCES) {
+                    throw new IllegalArgumentException("'" + repeat + "' repeats more than " + MAX_OCCURRENCES + " times");
+                }
+                list.add(LocalDateTime.of(date, time));
+            }
+        }
+        return list;
+    }
+
+    private static DayOfWeek dayOfWeek(String token) {
+        if (token.length() >= 3) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (day.name().toLowerCase().startsWith(token)) {
+                    return day;
+                }
+            }
+        }
+        throw new IllegalArgumentException("unknown repeat '" + token + "'");
+    }
+
+    /**
+     * Last day of a series: an ISO date, or the end of the first such month from {@code start}.
+     */
+    private static LocalDate endDate(LocalDate start, String token) {
+        if (token.length() >= 3) {
+            for (Month month : Month.values()) {
+                if (month.name().toLowerCase().startsWith(token)) {
+                    LocalDate end = start.withMonth(month.getValue());
+                    if (end.isBefore(start.withDayOfMonth(1))) {
+                        end = end.plusYears(1);
+                    }
+                    return end.withDayOfMonth(end.lengthOfMonth());
+                }
+            }
+        }
+        try {
+            return LocalDate.parse(token);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("'until " + token + "' is neither a date nor a month");
+        }
+    }
+
+    private static String insertStatement(int rows) {
+        StringBuilder statement = new StringBuilder("INSERT INTO flights (dep_datetime, arr_datetime, first_price, business_price, economy_price, luggage_price, weight_price, id_airline, dep_airport, arr_airport, dep_epoch, arr_epoch) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            statement.append(i == 0 ? "(?,?,?,?,?,?,?,?,?,?,?,?)" : ",(?,?,?,?,?,?,?,?,?,?,?,?)");
+        }
+        statement.append(" RETURNING id;");
+        return statement.toString();
+    }
+
+    private void insert() {
+        try {
+            DataSource.inTransaction(conn -> {
+                PreparedStatement fullStatement = conn.prepareStatement(insertStatement(ROWS_PER_STATEMENT));
+                try {
+                    for (int from = 0; from < flights.size(); from += ROWS_PER_STATEMENT) {
+                        List<Flight> rows = flights.subList(from, Math.min(flights.size(), from + ROWS_PER_STATEMENT));
+                        PreparedStatement query = rows.size() == ROWS_PER_STATEMENT ? fullStatement : conn.prepareStatement(insertStatement(rows.size()));
+                        for (int i = 0; i < rows.size(); i++) {
+                            bindFlight(query, i * 12, rows.get(i));
+                        }
+
+                        // ids of one statement are consecutive and follow the order of its rows
+                        int[] ids = new int[rows.size()];
+                        int count = 0;
+                        ResultSet res = query.executeQuery();
+                        while (res.next()) {
+                            ids[count++] = res.getInt("id");
+                        }
+                        res.close();
+                        if (query != fullStatement) {
+                            query.close();
+                        }
+                        Arrays.sort(ids);
+                        for (int i = 0; i < rows.size(); i++) {
+                            rows.get(i).setId(ids[i]);
+                        }
+                    }
+                } finally {
+                    fullStatement.close();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            error("The import failed and nothing was imported: " + e.getMessage());
+            return;
+        }
+        publish();
+        result.imported = flights.size();
+    }
+
+    private void bindFlight(PreparedStatement query, int offset, Flight flight) throws SQLException {
+        query.setString(offset + 1, flight.getDepDatetime().format(FlightDao.DATETIME_FORMATTER));
+        query.setString(offset + 2, flight.getArrDatetime().format(FlightDao.DATETIME_FORMATTER));
+        query.setDouble(offset + 3, flight.getFirstPrice());
+        query.setDouble(offset + 4, flight.getBusinessPrice());
+        query.setDouble(offset + 5, flight.getEconomyPrice());
+        query.setDouble(offset + 6, flight.getLuggagePrice());
+        query.setDouble(offset + 7, flight.getWeightPrice());
+        query.setInt(offset + 8, flight.getAirline().getId());
+        query.setInt(offset + 9, flight.getDepAirport().getId());
+        query.setInt(offset + 10, flight.getArrAirport().getId());
+        query.setLong(offset + 11, flight.getDepEpochMinute());
+        query.setLong(offset + 12, flight.getArrEpochMinute());
+    }
+
+    private void publish() {
+        List<Integer> ids = new ArrayList<>(flights.size());
+        flights.forEach(flight -> ids.add(flight.getId()));
+        DataEventBus.getInstance().publishInserts(Flight.class, ids, flights);
+    }
+}
@@ -7,6 +7,66 @@ import models.Seat;
 
 public class SeatDao implements Dao<Seat> {
 
+    /**
+     * A seat as stored, without the toggle button: seat maps need fresh {@link Seat} nodes each
+     * time they are built, so only the rows are cached. Also what code without a JavaFX toolkit
+     * (the HTTP server) reads seats as.
+     */
+    public static final class SeatRow {
+        final int id;
+        final int row;
+        final String column;
+        final String type;
+
+        SeatRow(int id, int row, String column, String type) {
+            this.id = id;
+            this.row = row;
+            this.column = column;
+            this.type = type;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        Seat toSeat() {
+            Seat seat = new Seat();
+            seat.setPrimaryKey(id);
+            seat.setColumn(column);
+            seat.setRow(row);
+            seat.setType(type);
+            return seat;
+        }
+    }
+
+    // ordered by row then column, as readAll returns them; null until warmed
+    private static volatile List<SeatRow> seatRows;
+    private static volatile Map<Integer, SeatRow> seatRowsById;
+
+    static void warm(List<SeatRow> rows) {
+        Map<Integer, SeatRow> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(row.id, row));
+        seatRowsById = byId;
+        seatRows = rows;
+    }
+
+    private static void invalidate() {
+        seatRows = null;
+        seatRowsById = null;
+    }
+
     @Override
     public int create(Seat seat) {
         Connection conn = DataSource.getConnection();
@@ -21,6 +81,7 @@ public class SeatDao implements Dao<Seat> {
             ResultSet id = query.getGeneratedKeys();
             if (id.next()) {
                 seat.setPrimaryKey(id.getInt(1));
+                invalidate();
             }
             query.close();
             return id.getInt(1);
@@ -32,6 +93,12 @@ public class SeatDao implements Dao<Seat> {
 
     @Override
     public Seat read(int id) {
+        Map<Integer, SeatRow> byId = seatRowsById;
+        if (byId != null) {
+            SeatRow row = byId.get(id);
+            return row == null ? null : row.toSeat();
+        }
+
         Connection conn = DataSource.getConnection();
         Seat seat = null;
         String statement = "SELECT * FROM seats WHERE id = ?;";
@@ -62,22 +129,35 @@ public class SeatDao implements Dao<Seat> {
 
     @Override
     public List<Seat> readAll() {
-        Connection conn = DataSource.getConnection();
-        List<Seat> list = new ArrayList<Seat>();
+        List<SeatRow> rows = readRows();
+        if (rows == null) {
+            return null;
+        }
+        List<Seat> list = new ArrayList<>(rows.size());
+        rows.forEach(row -> list.add(row.toSeat()));
+        return list;
+    }
+
+    /**
+     * Every seat ordered by row then column, as {@link #readAll()} but without creating nodes.
+     */
+    public List<SeatRow> readRows() {
+        List<SeatRow> rows = seatRows;
+        if (rows != null) {
+            return rows;
+        }
 
+        Connection conn = DataSource.getConnection();
+        List<SeatRow> cached = new ArrayList<>();
         try {
             PreparedStatement query = conn.prepareStatement("SELECT * FROM seats ORDER BY row, \"column\";");
             ResultSet res = query.executeQuery();
             while (res.next()) {
-                Seat seat = new Seat();
-                seat.setPrimaryKey(res.getInt("id"));
-                seat.setColumn(res.getString("column"));
-                seat.setRow(res.getInt("row"));
-                seat.setType(res.getString("type"));
-
-                list.add(seat);
+                cached.add(new SeatRow(res.getInt("id"), res.getInt("row"), res.getString("column"), res.getString("type")));
             }
-            return list;
+            query.close();
+            warm(cached);
+            return cached;
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
@@ -119,6 +199,7 @@ public class SeatDao implements Dao<Seat> {
 
             query.executeUpdate();
             query.close();
+            invalidate();
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -133,6 +214,7 @@ public class SeatDao implements Dao<Seat> {
             query.setInt(1, id);
             query.executeUpdate();
             query.close();
+            invalidate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
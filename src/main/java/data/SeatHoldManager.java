@@ -0,0 +1,124 @@
+package data;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temporary locks on (flight, seat) pairs, taken when a passenger moves on to the payment page
+ * so the seat cannot be picked by someone else mid-checkout. Holds live in memory only and
+ * expire after their TTL; a background thread drops expired entries.
+ * <p>
+ * Acquisition never blocks: it is a {@code putIfAbsent}, or a {@code replace} of an expired or
+ * own hold, retried until one of them wins.
+ */
+public class SeatHoldManager {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final long REAP_INTERVAL_SECONDS = 30;
+
+    private static SeatHoldManager seatHoldManager;
+
+    public static synchronized SeatHoldManager getInstance() {
+        if (seatHoldManager == null) {
+            seatHoldManager = new SeatHoldManager();
+        }
+        return seatHoldManager;
+    }
+
+    private static final class Hold {
+        final int account;
+        final long expiresAt;
+
+        Hold(int account, long expiresAt) {
+            this.account = account;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    private SeatHoldManager() {
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleWithFixedDelay(this::reap, REAP_INTERVAL_SECONDS, REAP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static long key(int flight, int seat) {
+        return ((long) flight << 32) | (seat & 0xFFFFFFFFL);
+    }
+
+    public boolean hold(int flight, int seat, int account) {
+        return hold(flight, seat, account, DEFAULT_TTL);
+    }
+
+    /**
+     * Takes or renews the hold on a seat for an account.
+     *
+     * @return false if another account holds the seat and its hold has not expired
+     */
+    public boolean hold(int flight, int seat, int account, Duration ttl) {
+        long key = key(flight, seat);
+        long now = System.nanoTime();
+        Hold hold = new Hold(account, now + ttl.toNanos());
+
+        while (true) {
+            Hold current = holds.putIfAbsent(key, hold);
+            if (current == null) {
+                return true;
+            }
+            if (current.account != account && !current.isExpired(now)) {
+                return false;
+            }
+            if (holds.replace(key, current, hold)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int flight, int seat, int account) {
+        long key = key(flight, seat);
+        Hold current = holds.get(key);
+        if (current != null && current.account == account) {
+            holds.remove(key, current);
+        }
+    }
+
+    public void releaseAll(int account) {
+        holds.values().removeIf(hold -> hold.account == account);
+    }
+
+    public boolean isHeldByOther(int flight, int seat, int account) {
+        Hold current = holds.get(key(flight, seat));
+        return current != null && current.account != account && !current.isExpired(System.nanoTime());
+    }
+
+    /**
+     * Seat ids of the flight currently held by accounts other than {@code account}.
+     */
+    public Set<Integer> readHeldSeats(int flight, int account) {
+        long now = System.nanoTime();
+        Set<Integer> seats = new HashSet<>();
+        holds.forEach((key, hold) -> {
+            if ((int) (key >>> 32) == flight && hold.account != account && !hold.isExpired(now)) {
+                seats.add((int) (long) key);
+            }
+        });
+        return seats;
+    }
+
+    private void reap() {
+        long now = System.nanoTime();
+        holds.values().removeIf(hold -> hold.isExpired(now));
+    }
+}
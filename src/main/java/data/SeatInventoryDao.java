@@ -0,0 +1,88 @@
+package data;
+
+import models.Flight;
+import models.SeatInventory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Read access to the {@code seat_inventory} table. Rows are never written from Java: the
+ * triggers installed by {@link Migrations} keep them in step with every insert, update and
+ * delete on {@code reservations} and {@code flights}, inside the same transaction.
+ */
+public class SeatInventoryDao {
+
+    public List<SeatInventory> read(Flight flight) {
+        Connection conn = DataSource.getConnection();
+        List<SeatInventory> list = new ArrayList<>();
+        String statement = "SELECT * FROM seat_inventory WHERE id_flight = ?;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            query.setInt(1, flight.getId());
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                list.add(readRow(res));
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    public SeatInventory read(Flight flight, String type) {
+        Connection conn = DataSource.getConnection();
+        SeatInventory inventory = null;
+        String statement = "SELECT * FROM seat_inventory WHERE id_flight = ? AND type = ?;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            query.setInt(1, flight.getId());
+            query.setString(2, type.toLowerCase());
+            ResultSet res = query.executeQuery();
+            if (res.next()) {
+                inventory = readRow(res);
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return inventory;
+    }
+
+    /**
+     * Available seats per flight id, for one cabin or summed over all cabins when {@code type} is null.
+     */
+    public HashMap<Integer, Integer> readAvailability(String type) {
+        Connection conn = DataSource.getConnection();
+        HashMap<Integer, Integer> availability = new HashMap<>();
+        String statement = (type == null)
+                ? "SELECT id_flight, SUM(available) AS available FROM seat_inventory GROUP BY id_flight;"
+                : "SELECT id_flight, available FROM seat_inventory WHERE type = ?;";
+        try {
+            PreparedStatement query = conn.prepareStatement(statement);
+            if (type != null) {
+                query.setString(1, type.toLowerCase());
+            }
+            ResultSet res = query.executeQuery();
+            while (res.next()) {
+                availability.put(res.getInt("id_flight"), res.getInt("available"));
+            }
+            query.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return availability;
+    }
+
+    private SeatInventory readRow(ResultSet res) throws SQLException {
+        SeatInventory inventory = new SeatInventory();
+        inventory.setFlight(res.getInt("id_flight"));
+        inventory.setType(res.getString("type"));
+        inventory.setCapacity(res.getInt("capacity"));
+        inventory.setAvailable(res.getInt("available"));
+        return inventory;
+    }
+}
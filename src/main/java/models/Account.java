@@ -78,11 +78,20 @@ public class Account {
         return getReservation(flight) != null;
     }
 
+    /**
+     * One of the account's reservations on the flight; a group booking has several, see
+     * {@link #getReservations(Flight)}.
+     */
     public Reservation getReservation(Flight flight) {
         ReservationDao reservationDao = new ReservationDao();
         return reservationDao.read(flight, this);
     }
 
+    public List<Reservation> getReservations(Flight flight) {
+        ReservationDao reservationDao = new ReservationDao();
+        return reservationDao.readGroup(flight, this);
+    }
+
     public ObservableList<Flight> getFavoriteFlights() {
         FavoriteDao favoriteDao = new FavoriteDao();
         List<Favorite> favoriteList = favoriteDao.readAll(this);
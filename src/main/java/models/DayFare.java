@@ -0,0 +1,49 @@
+package models;
+
+import java.time.LocalDate;
+
+public class DayFare {
+    private LocalDate date;
+    private double firstPrice;
+    private double businessPrice;
+    private double economyPrice;
+
+    public LocalDate getDate() {
+        return date;
+    }
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public double getFirstPrice() {
+        return firstPrice;
+    }
+    public void setFirstPrice(double firstPrice) {
+        this.firstPrice = firstPrice;
+    }
+
+    public double getBusinessPrice() {
+        return businessPrice;
+    }
+    public void setBusinessPrice(double businessPrice) {
+        this.businessPrice = businessPrice;
+    }
+
+    public double getEconomyPrice() {
+        return economyPrice;
+    }
+    public void setEconomyPrice(double economyPrice) {
+        this.economyPrice = economyPrice;
+    }
+
+    public double getPrice(String type) {
+        if (type == null) {
+            return economyPrice;
+        }
+        return switch (type.toLowerCase()) {
+            case "first" -> firstPrice;
+            case "business" -> businessPrice;
+            default -> economyPrice;
+        };
+    }
+}
@@ -6,11 +6,15 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class Flight {
+    // date-times are kept as minutes since the epoch, read as wall-clock times (no zone)
+    public static final long NO_DATETIME = Long.MIN_VALUE;
+
     private int id;
-    private LocalDateTime depDatetime;
-    private LocalDateTime arrDatetime;
+    private long depEpochMinute;
+    private long arrEpochMinute;
     private double firstPrice;
     private double businessPrice;
     private double economyPrice;
@@ -27,7 +31,16 @@ public class Flight {
         this.economyPrice = -1;
         this.luggagePrice = -1;
         this.weightPrice = -1;
-        this.favorite = new SimpleBooleanProperty(false);
+        this.depEpochMinute = NO_DATETIME;
+        this.arrEpochMinute = NO_DATETIME;
+    }
+
+    public static long toEpochMinute(LocalDateTime datetime) {
+        return datetime == null ? NO_DATETIME : datetime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return epochMinute == NO_DATETIME ? null : LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
     }
 
     public boolean isFavorite() {
@@ -44,6 +57,10 @@ public class Flight {
     }
 
     public SimpleBooleanProperty getFavoriteProperty() {
+        // only flights shown on a card are ever bound, so the property is created on first use
+        if (favorite == null) {
+            favorite = new SimpleBooleanProperty(false);
+        }
         return favorite;
     }
 
@@ -66,17 +83,31 @@ public class Flight {
     }
 
     public LocalDateTime getDepDatetime() {
-        return depDatetime;
+        return fromEpochMinute(depEpochMinute);
     }
     public void setDepDatetime(LocalDateTime dep_datetime) {
-        this.depDatetime = dep_datetime;
+        this.depEpochMinute = toEpochMinute(dep_datetime);
+    }
+
+    public long getDepEpochMinute() {
+        return depEpochMinute;
+    }
+    public void setDepEpochMinute(long depEpochMinute) {
+        this.depEpochMinute = depEpochMinute;
     }
 
     public LocalDateTime getArrDatetime() {
-        return arrDatetime;
+        return fromEpochMinute(arrEpochMinute);
     }
     public void setArrDatetime(LocalDateTime arr_datetime) {
-        this.arrDatetime = arr_datetime;
+        this.arrEpochMinute = toEpochMinute(arr_datetime);
+    }
+
+    public long getArrEpochMinute() {
+        return arrEpochMinute;
+    }
+    public void setArrEpochMinute(long arrEpochMinute) {
+        this.arrEpochMinute = arrEpochMinute;
     }
 
     public double getFirstPrice() {
@@ -0,0 +1,54 @@
+package models;
+
+import java.time.LocalDate;
+
+public class RouteFare {
+    private String depCountry;
+    private String depCity;
+    private String arrCountry;
+    private String arrCity;
+    private LocalDate date;
+    private double price;
+
+    public String getDepCountry() {
+        return depCountry;
+    }
+    public void setDepCountry(String depCountry) {
+        this.depCountry = depCountry;
+    }
+
+    public String getDepCity() {
+        return depCity;
+    }
+    public void setDepCity(String depCity) {
+        this.depCity = depCity;
+    }
+
+    public String getArrCountry() {
+        return arrCountry;
+    }
+    public void setArrCountry(String arrCountry) {
+        this.arrCountry = arrCountry;
+    }
+
+    public String getArrCity() {
+        return arrCity;
+    }
+    public void setArrCity(String arrCity) {
+        this.arrCity = arrCity;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+    public void setPrice(double price) {
+        this.price = price;
+    }
+}
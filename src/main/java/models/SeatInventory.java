@@ -0,0 +1,40 @@
+package models;
+
+public class SeatInventory {
+    private int flight;
+    private String type;
+    private int capacity;
+    private int available;
+
+    public int getFlight() {
+        return flight;
+    }
+    public void setFlight(int flight) {
+        this.flight = flight;
+    }
+
+    public String getType() {
+        return type;
+    }
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+
+    public int getBooked() {
+        return capacity - available;
+    }
+}
@@ -3,6 +3,8 @@ module FlightBookingApplication {
     requires javafx.fxml;
     requires javafx.graphics;
     requires java.sql;
+    requires java.xml;
+    requires jdk.httpserver;
     requires org.controlsfx.controls;
     requires java.desktop;
     requires javafx.swing;
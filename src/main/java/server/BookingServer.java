@@ -0,0 +1,336 @@
+package server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import data.AccountDao;
+import data.AirportDao;
+import data.DataSource;
+import data.FlightColumns;
+import data.FlightDao;
+import data.FlightSearchCache;
+import data.ReservationDao;
+import data.SeatDao;
+import models.Account;
+import models.Airport;
+import models.Flight;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Flight search, seat occupancy and booking as JSON over HTTP, without JavaFX, so kiosks and
+ * scripts can share one booking database with the desktop application.
+ * <pre>
+ * GET  /flights?fromCountry=&amp;fromCity=&amp;toCountry=&amp;toCity=&amp;after=yyyy-MM-dd&amp;before=yyyy-MM-dd
+ *              &amp;cabin=first|business|economy&amp;seats=1&amp;sort=id|departure|-departure&amp;page=0&amp;size=20
+ * GET  /flights/{id}/seats
+ * POST /reservations  {"username", "password", "flight", "seat", "luggages", "weight"}
+ * </pre>
+ * Requests go through the same DAOs and caches as the application ({@link FlightSearchCache},
+ * {@link FlightColumns}), and are served one virtual thread each where the JDK has them, or from a
+ * thread pool otherwise. The server runs in its own process, so it does not see the seats the
+ * application holds during a checkout: the unique index on a flight's seats is the only arbiter
+ * between the two, and the application reports a seat booked here as taken when it pays.
+ */
+public class BookingServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Pattern SEATS_PATH = Pattern.compile("/flights/(\\d+)/seats");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private HttpServer server;
+
+    /**
+     * Runs the server until the process is stopped.
+     *
+     * @param args the port, {@value #DEFAULT_PORT} if omitted; the address to bind comes from the
+     *             {@code skynet.server.host} property, the loopback interface by default
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String host = System.getProperty("skynet.server.host", "127.0.0.1");
+        DataSource.getConnection();
+        new BookingServer().start(new InetSocketAddress(host, port));
+        System.out.println("[Server] Listening on http://" + host + ":" + port);
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext("/flights", exchange -> handle(exchange, this::flights));
+        server.createContext("/reservations", exchange -> handle(exchange, this::reservations));
+        server.setExecutor(newExecutor());
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * One virtual thread per request on JDK 21 and later; the application targets 17, so the
+     * factory is looked up at run time.
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "booking-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws HttpError, IOException;
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        // closed whatever happens, so a client is never left waiting
+        try (exchange) {
+            Response response;
+            try {
+                response = handler.handle(exchange);
+            } catch (HttpError e) {
+                response = new Response(e.status, Map.of("error", e.getMessage()));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                response = new Response(500, Map.of("error", "Internal error"));
+            }
+
+            byte[] body = mapper.writeValueAsBytes(response.body());
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private Response flights(HttpExchange exchange) throws HttpError {
+        String path = exchange.getRequestURI().getPath();
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new HttpError(405, "Method not allowed");
+        }
+        if (path.equals("/flights") || path.equals("/flights/")) {
+            return searchFlights(parseQuery(exchange.getRequestURI().getRawQuery()));
+        }
+        Matcher seats = SEATS_PATH.matcher(path);
+        if (seats.matches()) {
+            return seats(parseId(seats.group(1)));
+        }
+        throw new HttpError(404, "Not found");
+    }
+
+    private Response searchFlights(Map<String, String> query) throws HttpError {
+        Set<Integer> depAirports = AirportDao.getAirportIds(query.get("fromCountry"), query.get("fromCity"));
+        Set<Integer> arrAirports = AirportDao.getAirportIds(query.get("toCountry"), query.get("toCity"));
+        long from = query.containsKey("after") ? Flight.toEpochMinute(parseDate(query.get("after")).atStartOfDay()) : Flight.NO_DATETIME;
+        long to = query.containsKey("before") ? Flight.toEpochMinute(parseDate(query.get("before")).plusDays(1).atStartOfDay()) : Flight.NO_DATETIME;
+        String cabin = query.get("cabin");
+        if (cabin != null && !List.of("first", "business", "economy").contains(cabin.toLowerCase())) {
+            throw new HttpError(400, "Unknown cabin: " + cabin);
+        }
+        int seats = parseInt(query, "seats", 1);
+        int page = parseInt(query, "page", 0);
+        int size = parseInt(query, "size", 20);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new HttpError(400, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // in long, so a huge page is refused rather than overflowing to a negative index
+        long first = (long) page * size;
+        if (first > Integer.MAX_VALUE) {
+            throw new HttpError(400, "page is out of range");
+        }
+        FlightColumns.Order order = switch (query.getOrDefault("sort", "id")) {
+            case "id" -> FlightColumns.Order.ID_DESCENDING;
+            case "departure" -> FlightColumns.Order.DEPARTURE_ASCENDING;
+            case "-departure" -> FlightColumns.Order.DEPARTURE_DESCENDING;
+            default -> throw new HttpError(400, "Unknown sort: " + query.get("sort"));
+        };
+
+        int[] ids = FlightSearchCache.getInstance().search(depAirports, arrAirports, from, to, cabin, seats, order, () -> false);
+        List<Map<String, Object>> flights = new ArrayList<>();
+        for (int i = (int) first; i < Math.min(ids.length, first + size); i++) {
+            Flight flight = FlightDao.getInstance().read(ids[i]);
+            if (flight != null) {
+                flights.add(toJson(flight));
+            }
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", ids.length);
+        body.put("page", page);
+        body.put("size", size);
+        body.put("flights", flights);
+        return new Response(200, body);
+    }
+
+    private Response seats(int flightId) throws HttpError {
+        Flight flight = FlightDao.getInstance().read(flightId);
+        if (flight == null) {
+            throw new HttpError(404, "No flight " + flightId);
+        }
+        HashMap<Integer, Integer> reserved = new ReservationDao().readOccupiedSeats(flight);
+
+        List<Map<String, Object>> seats = new ArrayList<>();
+        for (SeatDao.SeatRow row : new SeatDao().readRows()) {
+            Map<String, Object> seat = new LinkedHashMap<>();
+            seat.put("id", row.getId());
+            seat.put("seat", row.getColumn() + row.getRow());
+            seat.put("type", row.getType());
+            seat.put("status", reserved.containsKey(row.getId()) ? "reserved" : "free");
+            seats.add(seat);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("flight", flightId);
+        body.put("reserved", reserved.size());
+        body.put("seats", seats);
+        return new Response(200, body);
+    }
+
+    private Response reservations(HttpExchange exchange) throws HttpError, IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            throw new HttpError(405, "Method not allowed");
+        }
+        JsonNode request;
+        try (InputStream input = exchange.getRequestBody()) {
+            request = mapper.readTree(input);
+        } catch (IOException e) {
+            throw new HttpError(400, "Malformed JSON");
+        }
+        if (request == null || !request.hasNonNull("username") || !request.hasNonNull("password")
+                || !request.path("flight").canConvertToInt() || !request.path("seat").canConvertToInt()) {
+            throw new HttpError(400, "username, password, flight and seat are required");
+        }
+
+        // the same check as signing in to the application
+        Account account = new AccountDao().read(request.get("username").asText().trim());
+        if (account == null || !account.getPassword().equals(request.get("password").asText().trim())) {
+            throw new HttpError(401, "Wrong username or password");
+        }
+        Flight flight = FlightDao.getInstance().read(request.get("flight").asInt());
+        if (flight == null) {
+            throw new HttpError(404, "No flight " + request.get("flight").asInt());
+        }
+        int seat = request.get("seat").asInt();
+        // by rows: reading a Seat would create a toggle button, which needs the JavaFX toolkit
+        if (new SeatDao().readRows().stream().noneMatch(row -> row.getId() == seat)) {
+            throw new HttpError(404, "No seat " + seat);
+        }
+        ReservationDao.BookingResult result = new ReservationDao().book(flight, account.getId(), seat,
+                request.path("luggages").asInt(0), request.path("weight").asDouble(0));
+        return switch (result) {
+            case BOOKED -> new Response(201, Map.of("status", "booked"));
+            case SEAT_TAKEN -> throw new HttpError(409, "Seat already reserved");
+            case FAILED -> throw new HttpError(500, "Booking failed");
+        };
+    }
+
+    private static Map<String, Object> toJson(Flight flight) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", flight.getId());
+        json.put("airline", flight.getAirline() == null ? null : flight.getAirline().getName());
+        json.put("from", toJson(flight.getDepAirport()));
+        json.put("to", toJson(flight.getArrAirport()));
+        json.put("departure", flight.getDepDatetime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        json.put("arrival", flight.getArrDatetime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        json.put("firstPrice", flight.getFirstPrice());
+        json.put("businessPrice", flight.getBusinessPrice());
+        json.put("economyPrice", flight.getEconomyPrice());
+        json.put("luggagePrice", flight.getLuggagePrice());
+        json.put("weightPrice", flight.getWeightPrice());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Airport airport) {
+        if (airport == null) {
+            return null;
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("iata", airport.getIATA());
+        json.put("icao", airport.getICAO());
+        json.put("name", airport.getName());
+        json.put("city", airport.getCity());
+        json.put("country", airport.getCountry());
+        return json;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            if (!value.isBlank()) {
+                query.put(name, value);
+            }
+        }
+        return query;
+    }
+
+    private static int parseId(String text) throws HttpError {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Not found");
+        }
+    }
+
+    private static int parseInt(Map<String, String> query, String name, int defaultValue) throws HttpError {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new HttpError(400, name + " must not be negative");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, name + " must be a number");
+        }
+    }
+
+    private static LocalDate parseDate(String value) throws HttpError {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "Dates are written yyyy-MM-dd: " + value);
+        }
+    }
+}
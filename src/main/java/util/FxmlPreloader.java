@@ -0,0 +1,112 @@
+package util;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads and initializes ahead of time the classes an FXML view is made of: its controls, its
+ * controller and those of the views it includes.
+ * <p>
+ * Most of the time of the first {@link javafx.fxml.FXMLLoader#load()} of a view goes to loading
+ * and initializing these classes (control skins, CSS metadata, reflection on the controller).
+ * Doing it on a background thread while the user is still signing in makes the later load, which
+ * has to run on the FX thread, much shorter. No node or controller is created here.
+ */
+public class FxmlPreloader {
+    private final Set<String> visited = new HashSet<>();
+    private final Set<String> loadedClasses = new HashSet<>();
+
+    /**
+     * Preloads the classes of the views at the given resource paths.
+     *
+     * @return the number of classes loaded
+     */
+    public static int preload(String... paths) {
+        FxmlPreloader preloader = new FxmlPreloader();
+        for (String path : paths) {
+            URL url = FxmlPreloader.class.getResource(path);
+            if (url != null) {
+                preloader.preload(url);
+            }
+        }
+        return preloader.loadedClasses.size();
+    }
+
+    private void preload(URL url) {
+        if (!visited.add(url.toExternalForm())) {
+            return;
+        }
+        List<String> imports = new ArrayList<>();
+        List<URL> includes = new ArrayList<>();
+        try (InputStream input = url.openStream()) {
+            SAXParserFactory.newInstance().newSAXParser().parse(input, new DefaultHandler() {
+                @Override
+                public void processingInstruction(String target, String data) {
+                    if (target.equals("import")) {
+                        imports.add(data.trim());
+                    }
+                }
+
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    String controller = attributes.getValue("fx:controller");
+                    if (controller != null) {
+                        load(controller);
+                    }
+                    if (qName.equals("fx:include") && attributes.getValue("source") != null) {
+                        try {
+                            includes.add(new URL(url, attributes.getValue("source")));
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    // class elements are capitalized; properties and static properties (GridPane.rowIndex) are not classes
+                    if (!qName.contains(":") && !qName.contains(".") && Character.isUpperCase(qName.charAt(0))) {
+                        resolve(qName, imports);
+                    }
+                }
+            });
+        } catch (IOException | ParserConfigurationException | SAXException e) {
+            e.printStackTrace();
+        }
+        includes.forEach(this::preload);
+    }
+
+    private void resolve(String simpleName, List<String> imports) {
+        for (String imported : imports) {
+            if (imported.endsWith("." + simpleName)) {
+                load(imported);
+                return;
+            }
+        }
+        for (String imported : imports) {
+            if (imported.endsWith(".*") && load(imported.substring(0, imported.length() - 1) + simpleName)) {
+                return;
+            }
+        }
+    }
+
+    private boolean load(String className) {
+        if (loadedClasses.contains(className)) {
+            return true;
+        }
+        try {
+            Class.forName(className, true, FxmlPreloader.class.getClassLoader());
+            loadedClasses.add(className);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package util;
+
+import models.Seat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the best blocks of adjacent free seats on a flight's seat map.
+ * <p>
+ * The cabin is the six-abreast layout drawn by the seat map (columns A-C, aisle, D-F). Each row's
+ * occupancy is kept as a 6-bit mask, so testing a candidate block is a single AND against a
+ * precomputed block mask. Seats across the aisle are not adjacent, so a block of up to three seats
+ * stays on one side of it; a larger group is split across the aisle or over two rows. Blocks are
+ * scored by proximity to the front and by the optional window/aisle preference; the top K are kept
+ * in a bounded heap.
+ */
+public class SeatRecommender {
+    public static final int COLUMNS = 6;
+    private static final int AISLE = 3;
+    // the largest group a block is found for: a full row, or two half rows
+    public static final int MAX_GROUP = 2 * AISLE;
+    private static final int WINDOW_MASK = 1 | (1 << (COLUMNS - 1));
+    private static final int AISLE_MASK = (1 << (AISLE - 1)) | (1 << AISLE);
+
+    public enum Preference { NONE, WINDOW, AISLE }
+
+    public static class Block {
+        private final int row;
+        private final int firstColumn;
+        private final double score;
+        private final List<Seat> seats;
+
+        Block(int row, int firstColumn, double score, List<Seat> seats) {
+            this.row = row;
+            this.firstColumn = firstColumn;
+            this.score = score;
+            this.seats = seats;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getFirstColumn() {
+            return firstColumn;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public List<Seat> getSeats() {
+            return seats;
+        }
+
+        public boolean contains(Seat seat) {
+            return seats.contains(seat);
+        }
+    }
+
+    private final int firstRow;
+    private final Seat[][] layout;
+    private final String[] rowTypes;
+    private final int[] occupied;
+
+    /**
+     * @param seats the seats of the cabin; a seat is treated as occupied while it is disabled
+     */
+    public SeatRecommender(List<Seat> seats) {
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        for (Seat seat : seats) {
+            minRow = Math.min(minRow, seat.getRow());
+            maxRow = Math.max(maxRow, seat.getRow());
+        }
+        int nbRows = seats.isEmpty() ? 0 : maxRow - minRow + 1;
+
+        firstRow = minRow;
+        layout = new Seat[nbRows][COLUMNS];
+        rowTypes = new String[nbRows];
+        occupied = new int[nbRows];
+        // rows and columns missing from the seat list are never offered
+        Arrays.fill(occupied, (1 << COLUMNS) - 1);
+
+        for (Seat seat : seats) {
+            int row = seat.getRow() - firstRow;
+            int column = seat.getColumn().charAt(0) - 'A';
+            if (column < 0 || column >= COLUMNS) {
+                continue;
+            }
+            layout[row][column] = seat;
+            rowTypes[row] = seat.getType().toLowerCase();
+            setOccupied(seat, seat.isDisable());
+        }
+    }
+
+    public void setOccupied(Seat seat, boolean isOccupied) {
+        int row = seat.getRow() - firstRow;
+        int bit = 1 << (seat.getColumn().charAt(0) - 'A');
+        if (isOccupied) {
+            occupied[row] |= bit;
+        }
+        else {
+            occupied[row] &= ~bit;
+        }
+    }
+
+    private static boolean crossesAisle(int column, int size) {
+        return column < AISLE && column + size > AISLE;
+    }
+
+    private static int blockMask(int column, int size) {
+        return ((1 << size) - 1) << column;
+    }
+
+    private interface Candidate {
+        /**
+         * @param frontMask seats of the block in {@code row}
+         * @param backMask seats of the block in the row behind it, 0 when it fits in one row
+         */
+        void accept(int row, int frontMask, int backMask);
+    }
+
+    /**
+     * Enumerates every placement of a block of {@code size} seats, free or not. Up to three seats
+     * sit side by side on one side of the aisle; a larger group is split, either across the aisle in
+     * the same row or in two halves one behind the other on the same side.
+     */
+    private void forEachCandidate(int size, Candidate candidate) {
+        int nbRows = occupied.length;
+        for (int row = 0; row < nbRows; row++) {
+            if (size <= AISLE) {
+                for (int column = 0; column + size <= COLUMNS; column++) {
+                    if (!crossesAisle(column, size)) {
+                        candidate.accept(row, blockMask(column, size), 0);
+                    }
+                }
+                continue;
+            }
+
+            for (int column = 0; column + size <= COLUMNS; column++) {
+                candidate.accept(row, blockMask(column, size), 0);
+            }
+            if (row + 1 < nbRows && Objects.equals(rowTypes[row], rowTypes[row + 1])) {
+                int front = (size + 1) / 2;
+                int back = size - front;
+                for (int side = 0; side < COLUMNS; side += AISLE) {
+                    for (int frontColumn = side; frontColumn + front <= side + AISLE; frontColumn++) {
+                        // the back half sits right behind the front one
+                        for (int backColumn = frontColumn; backColumn + back <= frontColumn + front; backColumn++) {
+                            candidate.accept(row, blockMask(frontColumn, front), blockMask(backColumn, back));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isFree(int[] free, int row, int frontMask, int backMask) {
+        return (free[row] & frontMask) == frontMask && (backMask == 0 || (free[row + 1] & backMask) == backMask);
+    }
+
+    private Block block(int row, int frontMask, int backMask, double score) {
+        List<Seat> seats = new ArrayList<>(Integer.bitCount(frontMask) + Integer.bitCount(backMask));
+        for (int column = 0; column < COLUMNS; column++) {
+            if ((frontMask & (1 << column)) != 0) {
+                seats.add(layout[row][column]);
+            }
+        }
+        for (int column = 0; column < COLUMNS; column++) {
+            if ((backMask & (1 << column)) != 0) {
+                seats.add(layout[row + 1][column]);
+            }
+        }
+        return new Block(row + firstRow, Integer.numberOfTrailingZeros(frontMask), score, seats);
+    }
+
+    private int[] freeSeats() {
+        int[] free = new int[occupied.length];
+        for (int row = 0; row < occupied.length; row++) {
+            free[row] = ~occupied[row];
+        }
+        return free;
+    }
+
+    /**
+     * Returns up to {@code limit} blocks of {@code size} free seats together, best first. Groups of
+     * up to three are seated side by side; larger ones, up to six, are split across the aisle or
+     * over two rows.
+     *
+     * @param type cabin to search ("first", "business", "economy"), or null for any cabin
+     */
+    public List<Block> recommend(int size, String type, Preference preference, int limit) {
+        List<Block> blocks = new ArrayList<>();
+        if (size < 1 || size > MAX_GROUP || limit < 1) {
+            return blocks;
+        }
+
+        PriorityQueue<Block> best = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Block::getScore));
+        int[] free = freeSeats();
+        int nbRows = occupied.length;
+        forEachCandidate(size, (row, frontMask, backMask) -> {
+            if ((type != null && !type.equalsIgnoreCase(rowTypes[row])) || !isFree(free, row, frontMask, backMask)) {
+                return;
+            }
+            double score = score(row, nbRows, frontMask, backMask, preference);
+            if (best.size() < limit || score > best.peek().getScore()) {
+                best.add(block(row, frontMask, backMask, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        });
+
+        blocks.addAll(best);
+        blocks.sort(Comparator.comparingDouble(Block::getScore).reversed());
+        return blocks;
+    }
+
+    /**
+     * The best block of {@code size} free seats together, as {@link #recommend} would offer them,
+     * that contains {@code seat}, or null when there is none.
+     */
+    public Block blockAround(Seat seat, int size, Preference preference) {
+        int seatRow = seat.getRow() - firstRow;
+        int seatColumn = seat.getColumn().charAt(0) - 'A';
+        if (size < 1 || size > MAX_GROUP || seatRow < 0 || seatRow >= occupied.length || seatColumn < 0 || seatColumn >= COLUMNS) {
+            return null;
+        }
+
+        // the seat itself is the one being chosen, so it counts as free
+        int[] free = freeSeats();
+        free[seatRow] |= 1 << seatColumn;
+        int seatBit = 1 << seatColumn;
+        int nbRows = occupied.length;
+        Block[] best = new Block[1];
+        forEachCandidate(size, (row, frontMask, backMask) -> {
+            boolean containsSeat = (row == seatRow && (frontMask & seatBit) != 0) || (row + 1 == seatRow && (backMask & seatBit) != 0);
+            if (!containsSeat || !isFree(free, row, frontMask, backMask)) {
+                return;
+            }
+            double score = score(row, nbRows, frontMask, backMask, preference);
+            if (best[0] == null || score > best[0].getScore()) {
+                best[0] = block(row, frontMask, backMask, score);
+            }
+        });
+        return best[0];
+    }
+
+    private static double score(int row, int nbRows, int frontMask, int backMask, Preference preference) {
+        double score = nbRows - row;
+        // a group split over two rows counts as a row further back
+        if (backMask != 0) {
+            score -= 1;
+        }
+        int mask = frontMask | backMask;
+        if (preference == Preference.WINDOW && (mask & WINDOW_MASK) != 0) {
+            score += 3;
+        }
+        else if (preference == Preference.AISLE && (mask & AISLE_MASK) != 0) {
+            score += 3;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,156 @@
+package util;
+
+import controller.TicketPageController;
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import models.Reservation;
+import view.Palette;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Renders tickets to image files without tying up the FX thread.
+ * <p>
+ * A ticket is loaded from its FXML and filled on a background thread, laid out and rasterised on
+ * the FX thread (where {@code snapshot} has to run), then converted to an AWT image on the
+ * background threads again. Batch exports render and convert several tickets at once, but their
+ * pages are compressed and written one after another on a single writer thread: a TIFF sequence is
+ * written in order through one {@link ImageWriter}, which does the Deflate compression itself.
+ * Only a few pages are held in memory at a time.
+ */
+public class TicketRenderer {
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    // pages rendered ahead of the one being written
+    private static final int PAGES_AHEAD = THREADS * 2;
+
+    private static final ExecutorService renderers = Executors.newFixedThreadPool(THREADS, daemon("ticket-renderer"));
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(daemon("ticket-writer"));
+
+    private TicketRenderer() {
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Renders the ticket of one reservation off-screen.
+     */
+    public static CompletableFuture<BufferedImage> render(Reservation reservation) {
+        return CompletableFuture.supplyAsync(() -> load(reservation), renderers)
+                .thenCompose(TicketRenderer::snapshot)
+                .thenApplyAsync(image -> SwingFXUtils.fromFXImage(image, null), renderers);
+    }
+
+    private static FXMLLoader load(Reservation reservation) {
+        FXMLLoader loader = new FXMLLoader(TicketRenderer.class.getResource("/view/SearchPage/TicketPage.fxml"));
+        try {
+            Parent root = loader.load();
+            root.getStylesheets().add(TicketRenderer.class.getResource("/style/Application.css").toExternalForm());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TicketPageController controller = loader.getController();
+        controller.setData(reservation, false);
+        return loader;
+    }
+
+    private static CompletableFuture<WritableImage> snapshot(FXMLLoader loader) {
+        CompletableFuture<WritableImage> image = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                Scene scene = new Scene(loader.getRoot());
+                Palette.getDefaultPalette().usePalette(scene);
+                TicketPageController controller = loader.getController();
+                image.complete(controller.getTicket().snapshot(new SnapshotParameters(), null));
+            } catch (RuntimeException e) {
+                image.completeExceptionally(e);
+            }
+        });
+        return image;
+    }
+
+    /**
+     * Encodes an image already on screen (a snapshot of the open ticket) to a PNG file.
+     */
+    public static CompletableFuture<File> writePng(WritableImage image, File file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        }, renderers);
+    }
+
+    /**
+     * Renders every ticket and writes them, in the given order, as the pages of one TIFF file.
+     * Rendering runs ahead in parallel; compressing and writing the pages is sequential.
+     *
+     * @return the number of pages written
+     */
+    public static CompletableFuture<Integer> writeAll(List<Reservation> reservations, File file) {
+        return CompletableFuture.supplyAsync(() -> {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("tiff");
+            if (!writers.hasNext()) {
+                throw new IllegalStateException("No TIFF encoder available");
+            }
+            ImageWriter imageWriter = writers.next();
+            ImageWriteParam param = imageWriter.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType("Deflate");
+
+            // an image output stream does not truncate an existing file
+            file.delete();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+                imageWriter.setOutput(output);
+                imageWriter.prepareWriteSequence(null);
+
+                List<CompletableFuture<BufferedImage>> pages = new ArrayList<>(reservations.size());
+                for (int i = 0; i < Math.min(PAGES_AHEAD, reservations.size()); i++) {
+                    pages.add(render(reservations.get(i)));
+                }
+                for (int i = 0; i < reservations.size(); i++) {
+                    BufferedImage page = pages.get(i).join();
+                    pages.set(i, null);
+                    if (i + PAGES_AHEAD < reservations.size()) {
+                        pages.add(render(reservations.get(i + PAGES_AHEAD)));
+                    }
+                    imageWriter.writeToSequence(new IIOImage(page, null, null), param);
+                }
+
+                imageWriter.endWriteSequence();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                imageWriter.dispose();
+            }
+            return reservations.size();
+        }, writer);
+    }
+}